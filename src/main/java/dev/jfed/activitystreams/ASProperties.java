@@ -26,6 +26,7 @@ public final class ASProperties {
     public static final String MEDIA_TYPE = "mediaType";
     public static final String NAME = "name";
     public static final String NAME_MAP = "nameMap";
+    public static final String OBJECT = "object";
     public static final String PREVIEW = "preview";
     public static final String REL = "rel";
     public static final String TYPE = "type";
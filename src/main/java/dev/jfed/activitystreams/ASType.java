@@ -16,26 +16,20 @@
 
 package dev.jfed.activitystreams;
 
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.net.URI;
-import java.util.Locale;
-import java.util.Map;
 import java.util.Optional;
 
-import com.apicatalog.jsonld.JsonLd;
-import com.apicatalog.jsonld.JsonLdError;
-import com.apicatalog.jsonld.document.Document;
-import com.apicatalog.jsonld.document.JsonDocument;
 import com.apicatalog.jsonld.http.media.MediaType;
-import com.apicatalog.jsonld.lang.Keywords;
-import jakarta.json.Json;
+import dev.jfed.activitystreams.codec.ASCodec;
+import dev.jfed.activitystreams.codec.ContentHash;
+import dev.jfed.activitystreams.codec.DigestAlgorithm;
+import dev.jfed.activitystreams.codec.DigestedPayload;
+import dev.jfed.activitystreams.codec.PropertyVisitor;
+import dev.jfed.activitystreams.codegen.ASProperty;
 import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
 import jakarta.json.JsonStructure;
-import jakarta.json.JsonValue;
-import jakarta.json.JsonWriterFactory;
 import jakarta.json.stream.JsonGenerator;
-import org.javatuples.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,24 +44,18 @@ public abstract class ASType {
     private static final Logger log = LoggerFactory.getLogger(ASType.class);
 
     public static final String CONTEXT_VALUE = "https://www.w3.org/ns/activitystreams";
-    private static final Document CONTEXT = JsonDocument
-            .of(Json.createObjectBuilder().add(Keywords.CONTEXT, ASType.CONTEXT_VALUE).build());
     public static final MediaType AS_MEDIA_TYPE = MediaType.of("application", "activity+json");
+    private static final String UPDATE_TYPE = "Update";
     protected URI id;
     protected NaturalValue name;
-    private final JsonWriterFactory writerFactory;
 
-    protected ASType() {
-        Map<String, ?> config = Map.of(JsonGenerator.PRETTY_PRINTING, true);
-        writerFactory = Json.createWriterFactory(config);
-    }
-    
     /** 
      * Returns the id of this object.
      * 
      * @return URI the id of the object.
      * @see <a href="https://www.w3.org/TR/activitystreams-vocabulary/#dfn-id">Vocabulary#id</a>
      */
+    @ASProperty(ASProperties.ID)
     public URI getId() {
         return id;
     }
@@ -87,6 +75,7 @@ public abstract class ASType {
      * @return the name of the object.
      * @see <a href="https://www.w3.org/TR/activitystreams-vocabulary/#dfn-name">Vocabulary#name</a>
      */
+    @ASProperty(ASProperties.NAME)
     public NaturalValue getName() {
         return name;
     }
@@ -114,11 +103,7 @@ public abstract class ASType {
      * @return Object in JSON format
      */
     public String toJson() {
-        var strWriter = new StringWriter();
-        try (var writer = writerFactory.createWriter(strWriter)) {
-            writer.writeObject(toJsonObject().asJsonObject());
-        }
-        final var str = strWriter.toString();
+        final var str = ASCodec.local().encode(this);
         log.atTrace().setMessage("Converted to json: {}")
                 .addKeyValue("Id", getId())
                 .addKeyValue("Type", getType())
@@ -128,35 +113,97 @@ public abstract class ASType {
 
     }
 
-    public Optional<Pair<String, JsonValue>> mapNameToJsonValue() {
-        if (name != null) {
-            final Pair<String, JsonValue> response;
-            if (name.hasMultipleLanguages()) {
-                final var builder = Json.createObjectBuilder();
-                for (Map.Entry<Locale, String> entry : name.getAllValues()) {
-                    builder.add(entry.getKey().getLanguage(), entry.getValue());
-                }
-                response = Pair.with(ASProperties.NAME_MAP, builder.build());
-            } else {
-                response = Pair.with(ASProperties.NAME, Json.createValue(name.getValue()));
-            }
-            return Optional.of(response);
-        }
-        return Optional.empty();
+    /**
+     * Returns the JSON representation of this object as UTF-8 bytes, along with their digest computed while
+     * serializing. Meant for building the {@code Digest}/{@code Content-Digest} headers of outgoing deliveries
+     * without a second pass over the payload.
+     *
+     * @param algorithm the digest algorithm.
+     * @return Object in JSON format and its digest.
+     */
+    public DigestedPayload toJson(DigestAlgorithm algorithm) {
+        final var payload = ASCodec.local().encode(this, algorithm);
+        log.atTrace().setMessage("Converted to json with digest: {}")
+                .addKeyValue("Id", getId())
+                .addKeyValue("Type", getType())
+                .addArgument(payload)
+                .log();
+        return payload;
+    }
+
+    /**
+     * Returns the hash of the content of this object, computed from the model in canonical order without
+     * serializing it. Stable across runs, meant for ETags and for skipping writes of unchanged objects.
+     *
+     * @return the content hash.
+     */
+    public ContentHash contentHash() {
+        return ContentHash.of(this);
     }
 
     public abstract JsonStructure toJsonObject();
 
-    protected static Optional<JsonObject> fromJsonToObject(final String json) {
-        try {
-            final var document = JsonDocument.of(ASType.AS_MEDIA_TYPE, new StringReader(json));
-            if (document.getJsonContent().isPresent()) {
-                return Optional.of(JsonLd.compact(document, CONTEXT).get());
+    /**
+     * Writes the JSON representation of this object to the given generator. Types with a generated codec
+     * stream their properties directly instead of building the {@link #toJsonObject()} tree first.
+     *
+     * @param generator the generator to write to.
+     */
+    public void writeJson(JsonGenerator generator) {
+        generator.write(toJsonObject());
+    }
+
+    /**
+     * Returns the properties to apply to this object from a decoded update, which is either the partial object
+     * or the {@code Update} activity embedding it.
+     *
+     * @param document the decoded update.
+     * @return the partial object, or empty if there's none or it updates a different object.
+     */
+    protected final Optional<JsonObject> toUpdateDelta(final Optional<JsonObject> document) {
+        if (document.isEmpty()) {
+            return Optional.empty();
+        }
+        var delta = document.get();
+        if (delta.get(ASProperties.TYPE) instanceof JsonString type && UPDATE_TYPE.equals(type.getString())) {
+            if (!(delta.get(ASProperties.OBJECT) instanceof JsonObject object)) {
+                log.atDebug().setMessage("Update without an embedded object: {}").addArgument(delta).log();
+                return Optional.empty();
             }
-        } catch (JsonLdError e) {
+            delta = object;
+        }
+        if (id != null && delta.get(ASProperties.ID) instanceof JsonString deltaId
+                && !id.toString().equals(deltaId.getString())) {
+            log.atWarn().setMessage("Update is for a different object")
+                    .addKeyValue("Id", id)
+                    .addKeyValue("UpdateId", deltaId.getString())
+                    .log();
             return Optional.empty();
         }
-        return Optional.empty();
+        return Optional.of(delta);
+    }
+
+    /**
+     * Hands the properties of this object that are set to the given visitor. Types with a generated codec
+     * visit all of their properties, the default only visits the ones declared here.
+     *
+     * @param visitor the visitor.
+     */
+    public void visitProperties(PropertyVisitor visitor) {
+        if (id != null) {
+            visitor.visitUri(ASProperties.ID, id);
+        }
+        if (name != null) {
+            visitor.visitNaturalValue(ASProperties.NAME, name);
+        }
+    }
+
+    protected static Optional<JsonObject> fromJsonToObject(final String json) {
+        return ASCodec.local().decode(json);
+    }
+
+    protected static Optional<JsonObject> fromJsonToObject(final byte[] json) {
+        return ASCodec.local().decode(json);
     }
 
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A language priority list, such as the one in an {@code Accept-Language} header, prepared for the RFC 4647
+ * lookup done by {@link NaturalValue#negotiate(LanguagePriorityList)}.
+ * <p>
+ * The fallback chain of every range, down to its primary language, is computed once when the list is created,
+ * so negotiating only takes a hash lookup per candidate tag. The most recently parsed headers are cached, since
+ * clients keep sending the same few of them.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ * @see <a href="https://www.rfc-editor.org/rfc/rfc4647#section-3.4">RFC 4647#lookup</a>
+ */
+public final class LanguagePriorityList {
+    private static final Logger log = LoggerFactory.getLogger(LanguagePriorityList.class);
+
+    private static final int MAX_CACHED_HEADERS = 256;
+    private static final String WILDCARD = "*";
+    private static final LanguagePriorityList EMPTY = new LanguagePriorityList(new String[0], new String[0]);
+    // LRU, so headers sent once, such as junk from a misbehaving client, don't keep the common ones out
+    private static final Map<String, LanguagePriorityList> HEADER_CACHE =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, LanguagePriorityList> eldest) {
+                    return size() > MAX_CACHED_HEADERS;
+                }
+            };
+
+    private final String[] candidates;
+    private final String[] excluded;
+
+    private LanguagePriorityList(final String[] candidates, final String[] excluded) {
+        this.candidates = candidates;
+        this.excluded = excluded;
+    }
+
+    /**
+     * Parses an {@code Accept-Language} header. A malformed header is logged and treated as an empty list,
+     * so negotiating with it returns the default value.
+     *
+     * @param acceptLanguage the header value, may be null.
+     * @return the priority list.
+     */
+    public static LanguagePriorityList parse(final String acceptLanguage) {
+        if (acceptLanguage == null || acceptLanguage.isBlank()) {
+            return EMPTY;
+        }
+        final LanguagePriorityList cached;
+        synchronized (HEADER_CACHE) {
+            cached = HEADER_CACHE.get(acceptLanguage);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        final LanguagePriorityList list;
+        try {
+            list = of(Locale.LanguageRange.parse(acceptLanguage));
+        } catch (IllegalArgumentException e) {
+            log.atDebug().setMessage("Ignoring malformed Accept-Language: {}").addArgument(acceptLanguage).log();
+            return EMPTY;
+        }
+        synchronized (HEADER_CACHE) {
+            HEADER_CACHE.put(acceptLanguage, list);
+        }
+        return list;
+    }
+
+    /**
+     * Creates a priority list from already parsed ranges, in priority order as returned by
+     * {@link Locale.LanguageRange#parse(String)}. Ranges with a weight of 0 exclude their tag.
+     *
+     * @param ranges the language ranges.
+     * @return the priority list.
+     */
+    public static LanguagePriorityList of(final List<Locale.LanguageRange> ranges) {
+        if (ranges == null) {
+            throw new IllegalArgumentException("ranges cannot be null");
+        }
+        final Set<String> excluded = new HashSet<>();
+        final List<String> accepted = new ArrayList<>(ranges.size());
+        for (Locale.LanguageRange range : ranges) {
+            if (range.getWeight() == 0) {
+                excluded.add(range.getRange());
+            } else {
+                accepted.add(range.getRange());
+            }
+        }
+        final Set<String> candidates = new LinkedHashSet<>();
+        for (String range : accepted) {
+            addFallbackChain(range, excluded, candidates);
+        }
+        return new LanguagePriorityList(candidates.toArray(new String[0]), excluded.toArray(new String[0]));
+    }
+
+    /**
+     * Adds the tags to try for a range, from the range itself down to its primary language. A single
+     * character subtag, such as the {@code x} of a private use sequence, is dropped along with the subtag
+     * following it.
+     */
+    private static void addFallbackChain(final String range, final Set<String> excluded,
+                                         final Set<String> candidates) {
+        // the lookup scheme ignores wildcards, other than as the whole range, which matches the default
+        if (WILDCARD.equals(range) || range.startsWith(WILDCARD)) {
+            return;
+        }
+        var tag = range.replace("-" + WILDCARD, "");
+        while (true) {
+            if (!excluded.contains(tag)) {
+                candidates.add(tag);
+            }
+            final int separator = tag.lastIndexOf('-');
+            if (separator < 0) {
+                return;
+            }
+            tag = tag.substring(0, separator);
+            if (tag.length() > 2 && tag.charAt(tag.length() - 2) == '-') {
+                tag = tag.substring(0, tag.length() - 2);
+            }
+        }
+    }
+
+    /**
+     * Returns the lowercase language tags to look up, in order.
+     */
+    String[] getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Returns whether a range with a weight of 0 matches the given lowercase tag, using RFC 4647 basic
+     * filtering, so {@code en;q=0} also refuses {@code en-us}.
+     */
+    boolean isExcluded(final String tag) {
+        for (String range : excluded) {
+            if (WILDCARD.equals(range) || tag.equals(range)
+                    || tag.startsWith(range) && tag.charAt(range.length()) == '-') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(", ", candidates);
+    }
+}
@@ -15,13 +15,19 @@
  */
 package dev.jfed.activitystreams;
 
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Utility class to hold Natural Language values.
+ * <p>
+ * Values are kept in the canonical order of their languages, so two instances with the same values are
+ * serialized and hashed the same way no matter the order they were set in.
  *
  * @author Guillermo Castro
  * @since 0.0.1
@@ -29,8 +35,17 @@ import java.util.Set;
  */
 public class NaturalValue {
     public static final String UNDEFINED = "und";
+    // compares the subtags, which are stored fields, first. The language tag only breaks ties between locales
+    // that differ in their extensions, and is cached by Locale
+    private static final Comparator<Locale> LANGUAGE_ORDER = Comparator.comparing(Locale::getLanguage)
+            .thenComparing(Locale::getScript)
+            .thenComparing(Locale::getCountry)
+            .thenComparing(Locale::getVariant)
+            .thenComparing(Locale::toLanguageTag);
     private final Locale locale;
     private final Map<Locale, String> valueMap;
+    // lowercase language tag to value, built on the first negotiation and dropped when a value is set
+    private volatile Map<String, String> tagIndex;
 
     public static NaturalValueBuilder builder() {
         return new NaturalValueBuilder(Locale.ROOT);
@@ -60,7 +75,7 @@ public class NaturalValue {
 
     private NaturalValue(Locale locale) {
         this.locale = locale;
-        this.valueMap = new HashMap<>();
+        this.valueMap = new TreeMap<>(LANGUAGE_ORDER);
     }
 
     public String getValue() {
@@ -85,6 +100,7 @@ public class NaturalValue {
 
     public void setValue(Locale locale, String text) {
         valueMap.put(locale, text);
+        tagIndex = null;
     }
 
     public String getLanguage() {
@@ -103,6 +119,93 @@ public class NaturalValue {
         return valueMap.entrySet();
     }
 
+    /**
+     * Returns the value that best matches an {@code Accept-Language} header.
+     *
+     * @param acceptLanguage the header value, may be null.
+     * @return the best match, or the default value if there's none.
+     * @see #negotiate(LanguagePriorityList)
+     */
+    public String negotiate(String acceptLanguage) {
+        return negotiate(LanguagePriorityList.parse(acceptLanguage));
+    }
+
+    /**
+     * Returns the value that best matches the given language ranges, in priority order.
+     *
+     * @param ranges the language ranges.
+     * @return the best match, or the default value if there's none.
+     * @see #negotiate(LanguagePriorityList)
+     */
+    public String negotiate(List<Locale.LanguageRange> ranges) {
+        return negotiate(LanguagePriorityList.of(ranges));
+    }
+
+    /**
+     * Returns the value that best matches the given priority list, following the RFC 4647 lookup scheme: each
+     * range is tried from the most to the least specific tag, before moving on to the next range. Tags are
+     * matched ignoring case.
+     * <p>
+     * If no range matches, the value without a language is returned, or else the first value in language order
+     * that no range with a weight of 0 refuses. Null is only returned when every value is refused.
+     *
+     * @param languages the priority list.
+     * @return the best match, or the default value if there's none.
+     */
+    public String negotiate(LanguagePriorityList languages) {
+        if (languages == null) {
+            throw new IllegalArgumentException("languages cannot be null");
+        }
+        final var index = getTagIndex();
+        for (String tag : languages.getCandidates()) {
+            final var value = index.get(tag);
+            if (value != null) {
+                return value;
+            }
+        }
+        final var value = valueMap.get(Locale.ROOT);
+        if (value != null) {
+            return value;
+        }
+        for (Map.Entry<String, String> entry : index.entrySet()) {
+            if (!languages.isExcluded(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private Map<String, String> getTagIndex() {
+        var index = tagIndex;
+        if (index == null) {
+            // kept in language order, for the fallback
+            index = new LinkedHashMap<>();
+            for (Map.Entry<Locale, String> entry : valueMap.entrySet()) {
+                if (!Locale.ROOT.equals(entry.getKey())) {
+                    index.put(entry.getKey().toLanguageTag().toLowerCase(Locale.ROOT), entry.getValue());
+                }
+            }
+            tagIndex = index;
+        }
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NaturalValue other)) {
+            return false;
+        }
+        return locale.equals(other.locale) && valueMap.equals(other.valueMap);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * locale.hashCode() + valueMap.hashCode();
+    }
+
     @Override
     public String toString() {
         return valueMap.get(locale);
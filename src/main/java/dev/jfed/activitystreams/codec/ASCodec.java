@@ -0,0 +1,434 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.apicatalog.jsonld.JsonLd;
+import com.apicatalog.jsonld.JsonLdError;
+import com.apicatalog.jsonld.JsonLdOptions;
+import com.apicatalog.jsonld.compaction.Compaction;
+import com.apicatalog.jsonld.context.ActiveContext;
+import com.apicatalog.jsonld.document.Document;
+import com.apicatalog.jsonld.document.JsonDocument;
+import com.apicatalog.jsonld.expansion.Expansion;
+import com.apicatalog.jsonld.lang.Keywords;
+import com.apicatalog.jsonld.loader.DocumentLoader;
+import com.apicatalog.jsonld.processor.ProcessingRuntime;
+import dev.jfed.activitystreams.ASProperties;
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.jfr.ActivityStreamsEvent.Outcome;
+import dev.jfed.activitystreams.jfr.CompactionEvent;
+import dev.jfed.activitystreams.jfr.DecodeEvent;
+import dev.jfed.activitystreams.jfr.EncodeEvent;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.spi.JsonProvider;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParserFactory;
+import jakarta.json.stream.JsonParsingException;
+
+/**
+ * Reusable encoder/decoder state for Activity Streams documents.
+ * <p>
+ * A codec keeps its JSON-LD options (together with the contexts they already loaded), its output buffer and
+ * its input reader between calls, so steady-state processing doesn't allocate them again for every message.
+ * It also caches the active contexts it processed, keyed by the {@code @context} value of the documents, so
+ * documents with a context it has already seen, such as the array and inline contexts of Mastodon or Misskey,
+ * skip context processing entirely.
+ * Instances are not thread-safe: either use {@link #local()} to get the codec confined to the current thread,
+ * or pool instances created with {@link #ASCodec()} and hand each one to a single thread at a time.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class ASCodec {
+    private static final int INITIAL_BUFFER_CAPACITY = 1024;
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 1024 * 1024;
+    private static final int DEFAULT_CONTEXT_CACHE_CAPACITY = 64;
+
+    private static final ThreadLocal<ASCodec> LOCAL = ThreadLocal.withInitial(ASCodec::new);
+
+    private JsonLdOptions options;
+    private ProcessingRuntime runtime;
+    private ActiveContext compactionContext;
+    private final ContextCache contextCache;
+    private final StringBuilderWriter output;
+    private final ReusableByteArrayOutputStream byteOutput;
+    private final CharSequenceReader input;
+    private final Map<DigestAlgorithm, MessageDigest> digests;
+
+    public ASCodec() {
+        this(DEFAULT_CONTEXT_CACHE_CAPACITY);
+    }
+
+    /**
+     * Creates a codec that keeps up to the given number of processed contexts.
+     *
+     * @param contextCacheCapacity how many processed contexts to keep, 0 disables the cache.
+     */
+    public ASCodec(final int contextCacheCapacity) {
+        if (contextCacheCapacity < 0) {
+            throw new IllegalArgumentException("contextCacheCapacity can't be negative: " + contextCacheCapacity);
+        }
+        contextCache = contextCacheCapacity > 0 ? new ContextCache(contextCacheCapacity) : null;
+        output = new StringBuilderWriter(INITIAL_BUFFER_CAPACITY, MAX_RETAINED_BUFFER_CAPACITY);
+        byteOutput = new ReusableByteArrayOutputStream(INITIAL_BUFFER_CAPACITY, MAX_RETAINED_BUFFER_CAPACITY);
+        input = new CharSequenceReader();
+        digests = new EnumMap<>(DigestAlgorithm.class);
+    }
+
+    /*
+     * The shared state is split in holders so each one is only initialized by the first call that needs it:
+     * encoding never loads Titanium or the AS2 context, and extracting ids doesn't load the generator factory.
+     */
+
+    private static final class Writers {
+        private static final Map<String, ?> CONFIG = Map.of(JsonGenerator.PRETTY_PRINTING, true);
+        private static final JsonGeneratorFactory GENERATOR_FACTORY = Json.createGeneratorFactory(CONFIG);
+    }
+
+    private static final class Parsers {
+        private static final JsonParserFactory FACTORY = Json.createParserFactory(Map.of());
+    }
+
+    private static final class JsonLdState {
+        private static final DocumentLoader DOCUMENT_LOADER = new ContextDocumentLoader();
+        private static final JsonProvider PROVIDER = JsonProvider.provider();
+        private static final JsonString CONTEXT_VALUE = PROVIDER.createValue(ASType.CONTEXT_VALUE);
+        private static final Document CONTEXT = JsonDocument
+                .of(PROVIDER.createObjectBuilder().add(Keywords.CONTEXT, CONTEXT_VALUE).build());
+    }
+
+    /**
+     * Returns the codec confined to the current thread.
+     *
+     * @return the thread-local codec.
+     */
+    public static ASCodec local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Parses the given JSON and compacts it against the Activity Streams context.
+     *
+     * @param json the JSON document.
+     * @return the compacted object, or empty if the document is not valid JSON-LD.
+     */
+    public Optional<JsonObject> decode(final CharSequence json) {
+        try {
+            return decode(() -> JsonDocument.of(ASType.AS_MEDIA_TYPE, input.wrap(json)), json.length());
+        } finally {
+            input.clear();
+        }
+    }
+
+    /**
+     * Parses the given UTF-8 encoded JSON and compacts it against the Activity Streams context.
+     *
+     * @param json the JSON document.
+     * @return the compacted object, or empty if the document is not valid JSON-LD.
+     */
+    public Optional<JsonObject> decode(final byte[] json) {
+        return decode(() -> JsonDocument.of(ASType.AS_MEDIA_TYPE, new ByteArrayInputStream(json)), json.length);
+    }
+
+    @FunctionalInterface
+    private interface DocumentSource {
+        JsonDocument open() throws JsonLdError;
+    }
+
+    private Optional<JsonObject> decode(final DocumentSource source, final int payloadSize) {
+        final var event = new DecodeEvent();
+        event.begin();
+        var outcome = Outcome.FAILED;
+        JsonObject result = null;
+        try {
+            final var document = source.open();
+            if (document.getJsonContent().isPresent()) {
+                result = compact(document, payloadSize);
+                outcome = Outcome.SUCCESS;
+            } else {
+                outcome = Outcome.NO_CONTENT;
+            }
+        } catch (JsonLdError e) {
+            outcome = Outcome.INVALID;
+        } finally {
+            if (event.shouldCommit()) {
+                event.setPayloadSize(payloadSize);
+                event.setOutcome(outcome);
+                CodecSupport.describe(event, result);
+                event.commit();
+            }
+        }
+        return Optional.ofNullable(result);
+    }
+
+    private JsonObject compact(final Document document, final int payloadSize) throws JsonLdError {
+        final var event = new CompactionEvent();
+        event.begin();
+        var outcome = Outcome.FAILED;
+        JsonObject result = null;
+        try {
+            final var content = document.getJsonContent().orElse(JsonValue.EMPTY_JSON_OBJECT);
+            if (contextCache != null && content instanceof JsonObject object) {
+                result = compactWithCachedContext(object);
+            } else {
+                result = JsonLd.compact(document, JsonLdState.CONTEXT).options(getOptions()).get();
+            }
+            outcome = Outcome.SUCCESS;
+            return result;
+        } catch (JsonLdError e) {
+            outcome = Outcome.INVALID;
+            throw e;
+        } finally {
+            if (event.shouldCommit()) {
+                event.setPayloadSize(payloadSize);
+                event.setOutcome(outcome);
+                CodecSupport.describe(event, result);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Same steps as Titanium's compaction processor, except the active context of the document comes from the
+     * cache instead of processing its {@code @context} again, and the AS2 context to compact against is only
+     * processed once.
+     */
+    private JsonObject compactWithCachedContext(final JsonObject document) throws JsonLdError {
+        final var localContext = document.get(Keywords.CONTEXT);
+        final ActiveContext activeContext;
+        final JsonObject element;
+        if (localContext == null) {
+            activeContext = contextCache.get(JsonValue.NULL, value -> new ActiveContext(getRuntime()));
+            element = document;
+        } else {
+            activeContext = contextCache.get(localContext,
+                    value -> new ActiveContext(getRuntime()).newContext().create(value, null));
+            element = JsonLdState.PROVIDER.createObjectBuilder(document).remove(Keywords.CONTEXT).build();
+        }
+
+        var expanded = Expansion.with(activeContext, element, null, null)
+                .frameExpansion(false)
+                .ordered(false)
+                .compute();
+        if (expanded instanceof JsonObject object && object.size() == 1 && object.containsKey(Keywords.GRAPH)) {
+            expanded = object.get(Keywords.GRAPH);
+        }
+        final JsonArray input;
+        if (expanded == null || expanded.getValueType() == JsonValue.ValueType.NULL) {
+            input = JsonValue.EMPTY_JSON_ARRAY;
+        } else if (expanded instanceof JsonArray array) {
+            input = array;
+        } else {
+            input = JsonLdState.PROVIDER.createArrayBuilder().add(expanded).build();
+        }
+
+        final var context = getCompactionContext();
+        var compacted = Compaction.with(context)
+                .compactArrays(getOptions().isCompactArrays())
+                .ordered(getOptions().isOrdered())
+                .compact(input);
+        if (compacted instanceof JsonArray array) {
+            if (array.isEmpty()) {
+                return JsonValue.EMPTY_JSON_OBJECT;
+            }
+            compacted = JsonLdState.PROVIDER.createObjectBuilder()
+                    .add(context.uriCompaction().vocab(true).compact(Keywords.GRAPH), array)
+                    .build();
+        }
+        if (!(compacted instanceof JsonObject object) || object.isEmpty()) {
+            return JsonValue.EMPTY_JSON_OBJECT;
+        }
+        return JsonLdState.PROVIDER.createObjectBuilder(object)
+                .add(Keywords.CONTEXT, JsonLdState.CONTEXT_VALUE)
+                .build();
+    }
+
+    /**
+     * Returns the statistics of this codec's processed context cache.
+     *
+     * @return the cache statistics, all zero if the cache is disabled.
+     */
+    public ContextCacheStats getContextCacheStats() {
+        return contextCache != null ? contextCache.getStats() : new ContextCacheStats(0, 0, 0, 0);
+    }
+
+    /**
+     * Returns the statistics of the processed context caches of every codec, including the thread-local ones.
+     *
+     * @return the aggregated cache statistics.
+     */
+    public static ContextCacheStats getTotalContextCacheStats() {
+        return ContextCache.getTotalStats();
+    }
+
+    /**
+     * Extracts the top-level {@code id} of a document without building the JSON tree or doing any JSON-LD
+     * processing. Parsing stops as soon as the id is found.
+     * <p>
+     * Only the {@code id} and {@code @id} keys are recognized, a document that aliases them in its own context
+     * reports no id and has to be decoded to find it.
+     *
+     * @param json the JSON document.
+     * @return the value of the top-level id, or empty if there's none or the JSON is not valid.
+     */
+    public Optional<String> extractId(final CharSequence json) {
+        try (var parser = Parsers.FACTORY.createParser(input.wrap(json))) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_OBJECT) {
+                return Optional.empty();
+            }
+            while (parser.hasNext()) {
+                final var event = parser.next();
+                if (event == JsonParser.Event.END_OBJECT) {
+                    break;
+                }
+                final var key = parser.getString();
+                final var valueEvent = parser.next();
+                if (valueEvent == JsonParser.Event.VALUE_STRING
+                        && (ASProperties.ID.equals(key) || Keywords.ID.equals(key))) {
+                    return Optional.of(parser.getString());
+                } else if (valueEvent == JsonParser.Event.START_OBJECT) {
+                    parser.skipObject();
+                } else if (valueEvent == JsonParser.Event.START_ARRAY) {
+                    parser.skipArray();
+                }
+            }
+        } catch (JsonParsingException e) {
+            return Optional.empty();
+        } finally {
+            input.clear();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Writes the given object using the codec's output buffer, streaming its properties when the type supports it.
+     *
+     * @param value the object to write.
+     * @return the JSON text.
+     */
+    public String encode(final ASType value) {
+        final var event = new EncodeEvent();
+        event.begin();
+        var outcome = Outcome.FAILED;
+        int size = 0;
+        try {
+            output.reset();
+            try (var generator = Writers.GENERATOR_FACTORY.createGenerator(output)) {
+                value.writeJson(generator);
+            }
+            final var str = output.toString();
+            size = str.length();
+            outcome = Outcome.SUCCESS;
+            return str;
+        } finally {
+            output.reset();
+            commit(event, value, size, outcome);
+        }
+    }
+
+    /**
+     * Writes the given object as UTF-8, computing its digest on the fly as the bytes are produced.
+     *
+     * @param value the object to write.
+     * @param algorithm the digest algorithm.
+     * @return the payload and its digest.
+     */
+    public DigestedPayload encode(final ASType value, final DigestAlgorithm algorithm) {
+        final var event = new EncodeEvent();
+        event.begin();
+        var outcome = Outcome.FAILED;
+        int size = 0;
+        try {
+            final var digest = getMessageDigest(algorithm);
+            byteOutput.reset();
+            try (var generator = Writers.GENERATOR_FACTORY.createGenerator(
+                    new DigestOutputStream(byteOutput, digest), StandardCharsets.UTF_8)) {
+                value.writeJson(generator);
+            }
+            final var payload = new DigestedPayload(byteOutput.toByteArray(), algorithm, digest.digest());
+            size = payload.getPayload().length;
+            outcome = Outcome.SUCCESS;
+            return payload;
+        } finally {
+            byteOutput.reset();
+            commit(event, value, size, outcome);
+        }
+    }
+
+    private static void commit(final EncodeEvent event, final ASType value, final int size, final Outcome outcome) {
+        if (event.shouldCommit()) {
+            event.setPayloadSize(size);
+            event.setType(value.getType());
+            event.setId(value.getId());
+            event.setOutcome(outcome);
+            event.commit();
+        }
+    }
+
+    private JsonLdOptions getOptions() {
+        if (options == null) {
+            options = new JsonLdOptions(JsonLdState.DOCUMENT_LOADER);
+        }
+        return options;
+    }
+
+    private ProcessingRuntime getRuntime() {
+        if (runtime == null) {
+            runtime = ProcessingRuntime.of(getOptions());
+        }
+        return runtime;
+    }
+
+    private ActiveContext getCompactionContext() throws JsonLdError {
+        if (compactionContext == null) {
+            final var context = new ActiveContext(getRuntime()).newContext().create(JsonLdState.CONTEXT_VALUE, null);
+            context.createInverseContext();
+            compactionContext = context;
+        }
+        return compactionContext;
+    }
+
+    private MessageDigest getMessageDigest(final DigestAlgorithm algorithm) {
+        var digest = digests.get(algorithm);
+        if (digest == null) {
+            try {
+                digest = MessageDigest.getInstance(algorithm.getJcaName());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Digest algorithm not available: " + algorithm.getJcaName(), e);
+            }
+            digests.put(algorithm, digest);
+        } else {
+            digest.reset();
+        }
+        return digest;
+    }
+}
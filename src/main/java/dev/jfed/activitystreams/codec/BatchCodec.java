@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import dev.jfed.activitystreams.ASType;
+
+/**
+ * Decodes and encodes batches of documents in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * The batch is split in ranges of at most {@code threshold} items. Every item is processed with the
+ * {@link ASCodec#local() codec of the worker thread}, so buffers and JSON-LD state are reused by all the items
+ * a worker handles, and kept for the next batch. Results are returned in input order, and an item that fails
+ * is reported in its {@link BatchResult} without affecting the rest of the batch.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class BatchCodec {
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private BatchCodec(final BatchCodecBuilder builder) {
+        this.pool = builder.pool;
+        this.threshold = builder.threshold;
+    }
+
+    public static BatchCodecBuilder builder() {
+        return new BatchCodecBuilder();
+    }
+
+    public static class BatchCodecBuilder {
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+        private int threshold = 8;
+
+        private BatchCodecBuilder() {
+        }
+
+        public BatchCodecBuilder withPool(final ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of items a task processes without splitting further.
+         */
+        public BatchCodecBuilder withThreshold(final int threshold) {
+            if (threshold <= 0) {
+                throw new IllegalArgumentException("threshold must be positive: " + threshold);
+            }
+            this.threshold = threshold;
+            return this;
+        }
+
+        public BatchCodec build() {
+            return new BatchCodec(this);
+        }
+    }
+
+    /**
+     * Decodes UTF-8 encoded JSON documents, for example with {@code ASObject::fromJson}.
+     *
+     * @param payloads the documents.
+     * @param decoder decodes one document, returning empty if it's not valid.
+     * @param <T> type of the decoded objects.
+     * @return one result per payload, in the same order.
+     */
+    public <T extends ASType> List<BatchResult<T>> decodeAll(final List<byte[]> payloads,
+                                                             final Function<byte[], Optional<T>> decoder) {
+        return process(payloads, payload -> decoder.apply(payload)
+                .orElseThrow(() -> new IllegalArgumentException("Not a valid Activity Streams document")));
+    }
+
+    /**
+     * Encodes objects to JSON.
+     *
+     * @param values the objects.
+     * @return one result per object, in iteration order.
+     */
+    public List<BatchResult<String>> encodeAll(final Collection<? extends ASType> values) {
+        return process(values, value -> ASCodec.local().encode(value));
+    }
+
+    /**
+     * Encodes objects to UTF-8 JSON together with their digest, see {@link ASType#toJson(DigestAlgorithm)}.
+     *
+     * @param values the objects.
+     * @param algorithm the digest algorithm.
+     * @return one result per object, in iteration order.
+     */
+    public List<BatchResult<DigestedPayload>> encodeAll(final Collection<? extends ASType> values,
+                                                        final DigestAlgorithm algorithm) {
+        return process(values, value -> ASCodec.local().encode(value, algorithm));
+    }
+
+    private <I, O> List<BatchResult<O>> process(final Collection<? extends I> inputs, final Function<I, O> function) {
+        final List<? extends I> items = inputs instanceof List<? extends I> list && inputs instanceof RandomAccess
+                ? list
+                : new ArrayList<>(inputs);
+        @SuppressWarnings("unchecked")
+        final BatchResult<O>[] results = new BatchResult[items.size()];
+        if (!items.isEmpty()) {
+            pool.invoke(new BatchTask<>(items, function, results, 0, items.size(), threshold));
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    private static final class BatchTask<I, O> extends RecursiveAction {
+        private final transient List<? extends I> items;
+        private final transient Function<I, O> function;
+        private final transient BatchResult<O>[] results;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        BatchTask(final List<? extends I> items, final Function<I, O> function, final BatchResult<O>[] results,
+                  final int from, final int to, final int threshold) {
+            this.items = items;
+            this.function = function;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    results[i] = apply(i);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new BatchTask<>(items, function, results, from, middle, threshold),
+                        new BatchTask<>(items, function, results, middle, to, threshold));
+            }
+        }
+
+        private BatchResult<O> apply(final int index) {
+            try {
+                final I item = items.get(index);
+                if (item == null) {
+                    return BatchResult.failure(index, new IllegalArgumentException("Null item"));
+                }
+                return BatchResult.success(index, function.apply(item));
+            } catch (RuntimeException e) {
+                return BatchResult.failure(index, e);
+            }
+        }
+    }
+}
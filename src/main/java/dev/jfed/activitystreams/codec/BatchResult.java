@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+/**
+ * Result of one item of a batch processed by {@link BatchCodec}: either a value or the reason it failed.
+ *
+ * @param <T> type of the value.
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class BatchResult<T> {
+    private final int index;
+    private final T value;
+    private final Exception error;
+
+    private BatchResult(final int index, final T value, final Exception error) {
+        this.index = index;
+        this.value = value;
+        this.error = error;
+    }
+
+    static <T> BatchResult<T> success(final int index, final T value) {
+        return new BatchResult<>(index, value, null);
+    }
+
+    static <T> BatchResult<T> failure(final int index, final Exception error) {
+        return new BatchResult<>(index, null, error);
+    }
+
+    /**
+     * Returns the position of the item in the input.
+     *
+     * @return the index of the item.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Returns the value produced for the item.
+     *
+     * @return the value, or null if the item failed.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Returns why the item failed.
+     *
+     * @return the error, or null if the item succeeded.
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "[BatchResult: {index=" + index + ", " +
+                (isSuccess() ? "value=" + value : "error=" + error) +
+                "}]";
+    }
+}
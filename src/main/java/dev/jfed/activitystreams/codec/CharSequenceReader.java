@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.io.Reader;
+
+/**
+ * Unsynchronized {@link Reader} over a {@link CharSequence} that can be pointed at a new input and reused.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+final class CharSequenceReader extends Reader {
+    private CharSequence input = "";
+    private int position;
+
+    CharSequenceReader wrap(final CharSequence input) {
+        this.input = input;
+        this.position = 0;
+        return this;
+    }
+
+    void clear() {
+        wrap("");
+    }
+
+    @Override
+    public int read() {
+        return position < input.length() ? input.charAt(position++) : -1;
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) {
+        if (len == 0) {
+            return 0;
+        }
+        final int remaining = input.length() - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        final int count = Math.min(len, remaining);
+        if (input instanceof String str) {
+            str.getChars(position, position + count, cbuf, off);
+        } else {
+            for (int i = 0; i < count; i++) {
+                cbuf[off + i] = input.charAt(position + i);
+            }
+        }
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(final long n) {
+        final int count = (int) Math.min(Math.max(n, 0), (long) input.length() - position);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public boolean ready() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // the reader is reused, closing is a no-op
+    }
+}
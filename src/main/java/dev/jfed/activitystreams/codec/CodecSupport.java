@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+
+import com.apicatalog.jsonld.lang.Keywords;
+import dev.jfed.activitystreams.ASProperties;
+import dev.jfed.activitystreams.NaturalValue;
+import dev.jfed.activitystreams.jfr.ActivityStreamsEvent;
+import jakarta.json.Json;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonGenerator;
+
+/**
+ * Conversions between compacted JSON values and property types, used by the codecs generated for
+ * {@link dev.jfed.activitystreams.codegen.GenerateCodec} types.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class CodecSupport {
+    private CodecSupport() {}
+
+    public static String toString(final JsonValue value) {
+        return ((JsonString) value).getString();
+    }
+
+    public static URI toUri(final JsonValue value) {
+        return URI.create(((JsonString) value).getString());
+    }
+
+    public static int toInt(final JsonValue value) {
+        return ((JsonNumber) value).intValue();
+    }
+
+    /**
+     * Adds a plain string property, such as {@code name}, to a natural language value, as the value without a
+     * language. Compaction moves that value out of the language map when there are others, so both properties
+     * have to be merged.
+     *
+     * @param target the value decoded so far, or null to create a new one.
+     * @param value the JSON value of the property.
+     * @return the natural language value.
+     */
+    public static NaturalValue toNaturalValue(final NaturalValue target, final JsonValue value) {
+        final var result = target != null ? target : NaturalValue.builder().build();
+        result.setValue(((JsonString) value).getString());
+        return result;
+    }
+
+    /**
+     * Adds the values of a language map property, such as {@code nameMap}, to a natural language value. Values
+     * under {@code @none} have no language.
+     *
+     * @param target the value decoded so far, or null to create a new one.
+     * @param value the JSON value of the property.
+     * @return the natural language value.
+     * @see #toNaturalValue(NaturalValue, JsonValue)
+     */
+    public static NaturalValue mapToNaturalValue(final NaturalValue target, final JsonValue value) {
+        final var result = target != null ? target : NaturalValue.builder().build();
+        value.asJsonObject().forEach((k, v) -> result.setValue(
+                Keywords.NONE.equals(k) ? NaturalValue.UNDEFINED : k, ((JsonString) v).getString()));
+        return result;
+    }
+
+    /**
+     * Returns whether a natural language value is written as a language map, when it has several languages or
+     * only a language-tagged one, rather than as a plain string. Every writer, JSON or RDF, makes the same
+     * choice through this method.
+     */
+    public static boolean isLanguageMap(final NaturalValue value) {
+        return value.hasMultipleLanguages() || value.getValue() == null;
+    }
+
+    /**
+     * Adds a natural language value either as a plain string or, when {@link #isLanguageMap(NaturalValue)}, as
+     * a language map keyed by {@link #languageKey(Locale)}.
+     */
+    public static void add(final JsonObjectBuilder builder, final String name, final String mapName,
+                           final NaturalValue value) {
+        if (isLanguageMap(value)) {
+            final var mapBuilder = Json.createObjectBuilder();
+            for (Map.Entry<Locale, String> entry : value.getAllValues()) {
+                mapBuilder.add(languageKey(entry.getKey()), entry.getValue());
+            }
+            builder.add(mapName, mapBuilder);
+        } else {
+            builder.add(name, value.getValue());
+        }
+    }
+
+    /**
+     * Streaming counterpart of {@link #add(JsonObjectBuilder, String, String, NaturalValue)}.
+     */
+    public static void write(final JsonGenerator generator, final String name, final String mapName,
+                             final NaturalValue value) {
+        if (isLanguageMap(value)) {
+            generator.writeStartObject(mapName);
+            for (Map.Entry<Locale, String> entry : value.getAllValues()) {
+                generator.write(languageKey(entry.getKey()), entry.getValue());
+            }
+            generator.writeEnd();
+        } else {
+            generator.write(name, value.getValue());
+        }
+    }
+
+    /**
+     * Returns the language map key for a locale: its language tag, or {@code @none} for the value without a
+     * language.
+     */
+    public static String languageKey(final Locale locale) {
+        return Locale.ROOT.equals(locale) ? Keywords.NONE : locale.toLanguageTag();
+    }
+
+    /**
+     * Returns the language of a locale as expanded JSON-LD and RDF have it: the full tag, lowercased as
+     * JSON-LD processors normalize it, or null for the value without a language.
+     */
+    public static String expandedLanguage(final Locale locale) {
+        return Locale.ROOT.equals(locale) ? null : locale.toLanguageTag().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Fills the type and id host of an event from a compacted document.
+     *
+     * @param event the event to describe.
+     * @param object the compacted document, may be null if it couldn't be produced.
+     */
+    public static void describe(final ActivityStreamsEvent event, final JsonObject object) {
+        if (object == null) {
+            return;
+        }
+        if (object.get(ASProperties.TYPE) instanceof JsonString type) {
+            event.setType(type.getString());
+        }
+        if (object.get(ASProperties.ID) instanceof JsonString id) {
+            event.setId(id.getString());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.NaturalValue;
+
+/**
+ * 128-bit hash of the content of an {@link ASType}, for ETags and for telling whether an object changed before
+ * writing it again.
+ * <p>
+ * The hash is MurmurHash3 (x64, 128-bit) of a canonical encoding of the object: its type, then its properties
+ * in the order they are visited, which is the canonical order of their terms, with natural language values in
+ * the canonical order of their languages. The encoding is streamed straight from the model, so no JSON is
+ * built, and it's stable across runs, which plain {@code hashCode()} isn't. Objects that are equal have the
+ * same hash.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ * @see ASType#contentHash()
+ */
+public final class ContentHash {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long high;
+    private final long low;
+
+    private ContentHash(final long high, final long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Computes the content hash of the given object.
+     *
+     * @param value the object.
+     * @return its content hash.
+     */
+    public static ContentHash of(final ASType value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value cannot be null");
+        }
+        final var hasher = new Hasher();
+        hasher.putByte(Hasher.OBJECT);
+        hasher.putObject(value);
+        return hasher.finish();
+    }
+
+    /**
+     * Returns the first 64 bits of the hash, for callers that are fine with a shorter one.
+     *
+     * @return the 64-bit hash.
+     */
+    public long asLong() {
+        return high;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * Returns the hash as 32 lowercase hexadecimal digits.
+     *
+     * @return the hash in hexadecimal.
+     */
+    public String toHexString() {
+        final var chars = new char[32];
+        for (int i = 0; i < 16; i++) {
+            chars[i] = HEX[(int) (high >>> (60 - i * 4)) & 0xF];
+            chars[i + 16] = HEX[(int) (low >>> (60 - i * 4)) & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Returns the hash as a strong entity tag, quotes included, for the {@code ETag} header.
+     *
+     * @return the entity tag.
+     */
+    public String toETag() {
+        return '"' + toHexString() + '"';
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof ContentHash other && high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high);
+    }
+
+    @Override
+    public String toString() {
+        return toHexString();
+    }
+
+    /**
+     * Streaming MurmurHash3 x64 128 over the canonical encoding. Every value is prefixed by a tag and strings
+     * by their length, so different objects can't encode to the same bytes.
+     */
+    private static final class Hasher implements PropertyVisitor {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private static final int OBJECT = 'O';
+        private static final int END = 'E';
+        private static final int URI_VALUE = 'U';
+        private static final int STRING_VALUE = 'S';
+        private static final int INT_VALUE = 'I';
+        private static final int NATURAL_VALUE = 'N';
+
+        private long h1;
+        private long h2;
+        private long k1;
+        private long k2;
+        private int position;
+        private long length;
+
+        /**
+         * Writes the type and properties of an object, followed by an end marker, so a nested object can't
+         * encode the same as properties of the object it's nested in.
+         */
+        void putObject(final ASType value) {
+            putString(value.getType());
+            value.visitProperties(this);
+            putByte(END);
+        }
+
+        @Override
+        public void visitUri(final String name, final URI value) {
+            putByte(URI_VALUE);
+            putString(name);
+            putString(value.toString());
+        }
+
+        @Override
+        public void visitString(final String name, final String value) {
+            putByte(STRING_VALUE);
+            putString(name);
+            putString(value);
+        }
+
+        @Override
+        public void visitInt(final String name, final int value) {
+            putByte(INT_VALUE);
+            putString(name);
+            putInt(value);
+        }
+
+        @Override
+        public void visitNaturalValue(final String name, final NaturalValue value) {
+            putByte(NATURAL_VALUE);
+            putString(name);
+            final var values = value.getAllValues();
+            putInt(values.size());
+            for (Map.Entry<Locale, String> entry : values) {
+                putString(entry.getKey().toLanguageTag());
+                putString(entry.getValue());
+            }
+        }
+
+        @Override
+        public void visitObject(final String name, final ASType value) {
+            putByte(OBJECT);
+            putString(name);
+            putObject(value);
+        }
+
+        private void putString(final String value) {
+            final int size = value.length();
+            putInt(size);
+            for (int i = 0; i < size; i++) {
+                final char c = value.charAt(i);
+                putByte(c);
+                putByte(c >>> 8);
+            }
+        }
+
+        private void putInt(final int value) {
+            putByte(value);
+            putByte(value >>> 8);
+            putByte(value >>> 16);
+            putByte(value >>> 24);
+        }
+
+        void putByte(final int value) {
+            final long b = value & 0xFFL;
+            if (position < 8) {
+                k1 |= b << (position << 3);
+            } else {
+                k2 |= b << ((position - 8) << 3);
+            }
+            length++;
+            if (++position == 16) {
+                mixBlock();
+                k1 = 0;
+                k2 = 0;
+                position = 0;
+            }
+        }
+
+        private void mixBlock() {
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        ContentHash finish() {
+            // the tail is zero-padded, and mixing zeros is a no-op, so there's no need to check its size
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+            return new ContentHash(h1, h2);
+        }
+
+        private static long mixK1(long k) {
+            k *= C1;
+            k = Long.rotateLeft(k, 31);
+            return k * C2;
+        }
+
+        private static long mixK2(long k) {
+            k *= C2;
+            k = Long.rotateLeft(k, 33);
+            return k * C1;
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb93fe53e1a4fL;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.apicatalog.jsonld.JsonLdError;
+import com.apicatalog.jsonld.context.ActiveContext;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+/**
+ * Bounded LRU cache of processed active contexts, keyed by the {@code @context} value of a document.
+ * <p>
+ * Processed contexts keep a reference to the JSON-LD runtime that created them, which loads scoped contexts
+ * lazily and is not thread-safe, so a cache belongs to a single {@link ASCodec}. Statistics are also added to
+ * process-wide totals, where the size is the sum of the caches that haven't been garbage collected yet, so the
+ * caches of discarded thread-local codecs stop counting once they are collected.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+final class ContextCache {
+    private static final LongAdder TOTAL_HITS = new LongAdder();
+    private static final LongAdder TOTAL_MISSES = new LongAdder();
+    private static final LongAdder TOTAL_EVICTIONS = new LongAdder();
+    private static final Set<ContextCache> LIVE_CACHES = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final int capacity;
+    private final Map<ContextKey, ActiveContext> contexts;
+    private long hits;
+    private long misses;
+    private long evictions;
+    // published for the process-wide total, which is read from other threads
+    private volatile int size;
+
+    ContextCache(final int capacity) {
+        this.capacity = capacity;
+        this.contexts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ContextKey, ActiveContext> eldest) {
+                if (size() > ContextCache.this.capacity) {
+                    evictions++;
+                    TOTAL_EVICTIONS.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        LIVE_CACHES.add(this);
+    }
+
+    @FunctionalInterface
+    interface ContextFactory {
+        ActiveContext create(JsonValue localContext) throws JsonLdError;
+    }
+
+    /**
+     * Returns the processed context for the given {@code @context} value, processing it with the factory the
+     * first time it's seen. Contexts that fail to process are not cached.
+     */
+    ActiveContext get(final JsonValue localContext, final ContextFactory factory) throws JsonLdError {
+        final var key = new ContextKey(localContext);
+        var context = contexts.get(key);
+        if (context != null) {
+            hits++;
+            TOTAL_HITS.increment();
+            return context;
+        }
+        misses++;
+        TOTAL_MISSES.increment();
+        context = factory.create(localContext);
+        contexts.put(key, context);
+        size = contexts.size();
+        return context;
+    }
+
+    ContextCacheStats getStats() {
+        return new ContextCacheStats(hits, misses, evictions, contexts.size());
+    }
+
+    static ContextCacheStats getTotalStats() {
+        long totalSize = 0;
+        synchronized (LIVE_CACHES) {
+            for (final var cache : LIVE_CACHES) {
+                totalSize += cache.size;
+            }
+        }
+        return new ContextCacheStats(TOTAL_HITS.sum(), TOTAL_MISSES.sum(), TOTAL_EVICTIONS.sum(), totalSize);
+    }
+
+    /**
+     * Key that hashes the context structurally once, and only compares values when the hashes match. Entries
+     * of an object are hashed independently of their order, like {@link JsonObject#equals(Object)} compares them.
+     */
+    static final class ContextKey {
+        private final JsonValue value;
+        private final long hash;
+
+        ContextKey(final JsonValue value) {
+            this.value = value;
+            this.hash = hash(value);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            return o instanceof ContextKey other && hash == other.hash && value.equals(other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        static long hash(final JsonValue value) {
+            switch (value.getValueType()) {
+                case STRING:
+                    return mix(hash(((JsonString) value).getString()) ^ 0x5bd1e995L);
+                case NUMBER:
+                    return mix(((JsonNumber) value).bigDecimalValue().stripTrailingZeros().hashCode() ^ 0x27d4eb2fL);
+                case ARRAY: {
+                    long h = 0x165667b1L;
+                    for (final var element : (JsonArray) value) {
+                        h = mix(h * 31 + hash(element));
+                    }
+                    return h;
+                }
+                case OBJECT: {
+                    long h = 0x85ebca6bL;
+                    for (final var entry : ((JsonObject) value).entrySet()) {
+                        h += mix(hash(entry.getKey()) * 31 + hash(entry.getValue()));
+                    }
+                    return mix(h);
+                }
+                default:
+                    return value.getValueType().ordinal();
+            }
+        }
+
+        private static long hash(final String s) {
+            // FNV-1a
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return h;
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+/**
+ * Snapshot of the statistics of the processed context cache.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ * @see ASCodec#getContextCacheStats()
+ * @see ASCodec#getTotalContextCacheStats()
+ */
+public final class ContextCacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long size;
+
+    ContextCacheStats(final long hitCount, final long missCount, final long evictionCount, final long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    /**
+     * Returns how many documents were decoded with an already processed context.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns how many documents had their context processed.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns how many processed contexts are cached. For the process-wide totals, it only counts the caches of
+     * codecs that haven't been garbage collected.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the ratio of lookups that hit the cache, or 0 if there were none.
+     */
+    public double getHitRate() {
+        final long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "[ContextCacheStats: {" +
+                "hits=" + hitCount + ", " +
+                "misses=" + missCount + ", " +
+                "evictions=" + evictionCount + ", " +
+                "size=" + size + ", " +
+                "hitRate=" + String.format("%.3f", getHitRate()) +
+                "}]";
+    }
+}
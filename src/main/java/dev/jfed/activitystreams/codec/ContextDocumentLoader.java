@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.apicatalog.jsonld.JsonLdError;
+import com.apicatalog.jsonld.document.Document;
+import com.apicatalog.jsonld.document.JsonDocument;
+import com.apicatalog.jsonld.http.media.MediaType;
+import com.apicatalog.jsonld.loader.DocumentLoader;
+import com.apicatalog.jsonld.loader.DocumentLoaderOptions;
+import com.apicatalog.jsonld.loader.SchemeRouter;
+import dev.jfed.activitystreams.ASType;
+
+/**
+ * Document loader that serves the Activity Streams 2.0 context bundled with this library, and delegates
+ * any other document to a fallback loader.
+ * <p>
+ * The AS2 context is requested for almost every document we process, fetching it from w3.org each time
+ * would make decoding depend on the network. Both the bundled context and the fallback loader are only
+ * created when first requested, so building a loader is cheap.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class ContextDocumentLoader implements DocumentLoader {
+    private static final String AS2_CONTEXT_RESOURCE = "/activitystreams.jsonld";
+    private static final Set<String> AS2_CONTEXT_LOCATIONS = Set.of(
+            "//www.w3.org/ns/activitystreams",
+            "//www.w3.org/ns/activitystreams.jsonld");
+
+    private final Supplier<DocumentLoader> fallbackSupplier;
+    private volatile DocumentLoader fallback;
+
+    /**
+     * Creates a loader that delegates other documents to Titanium's default loader.
+     */
+    public ContextDocumentLoader() {
+        this(SchemeRouter::defaultInstance);
+    }
+
+    public ContextDocumentLoader(final DocumentLoader fallback) {
+        this(() -> fallback);
+    }
+
+    private ContextDocumentLoader(final Supplier<DocumentLoader> fallbackSupplier) {
+        this.fallbackSupplier = fallbackSupplier;
+    }
+
+    private static final class BundledContext {
+        private static final Document DOCUMENT = loadBundledContext();
+    }
+
+    @Override
+    public Document loadDocument(final URI url, final DocumentLoaderOptions options) throws JsonLdError {
+        if (isActivityStreamsContext(url)) {
+            return BundledContext.DOCUMENT;
+        }
+        var loader = fallback;
+        if (loader == null) {
+            loader = fallbackSupplier.get();
+            fallback = loader;
+        }
+        return loader.loadDocument(url, options);
+    }
+
+    /**
+     * Returns true if the given URL points to the AS2 context, regardless of the scheme used to reference it.
+     *
+     * @param url the URL of the document.
+     * @return true if the bundled context can be used for this URL.
+     */
+    public static boolean isActivityStreamsContext(final URI url) {
+        return url != null && url.getRawFragment() == null
+                && AS2_CONTEXT_LOCATIONS.contains(url.getRawSchemeSpecificPart());
+    }
+
+    private static Document loadBundledContext() {
+        try (InputStream is = ContextDocumentLoader.class.getResourceAsStream(AS2_CONTEXT_RESOURCE)) {
+            if (is == null) {
+                throw new IllegalStateException("Missing bundled context: " + AS2_CONTEXT_RESOURCE);
+            }
+            final var document = JsonDocument.of(MediaType.JSON_LD, is);
+            document.setDocumentUrl(URI.create(ASType.CONTEXT_VALUE));
+            return document;
+        } catch (JsonLdError | IOException e) {
+            throw new IllegalStateException("Unable to load bundled context: " + AS2_CONTEXT_RESOURCE, e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.apicatalog.jsonld.lang.Keywords;
+import dev.jfed.activitystreams.ASProperties;
+import dev.jfed.activitystreams.ASType;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * State of the decoding of a single document, passed down to the codecs of nested values.
+ * <p>
+ * It limits how deep nested objects are decoded, and makes nested copies of the same object resolve to a single
+ * instance, so a document that embeds the same actor or attachment many times only decodes and allocates it
+ * once. A copy is only shared when it has the same {@code id} and exactly the same JSON as the one decoded
+ * before, and that one was decoded with at least as many levels left, so a stub or a copy cut off by the depth
+ * limit never stands in for a fuller one. The top-level object is never shared with a nested copy of itself,
+ * that would make the decoded objects cyclic.
+ * <p>
+ * Shared instances are the same object, so changing one through a setter changes every place of the document
+ * it appears in. Build a new instance instead of mutating a decoded one. Not thread-safe, a context is meant for
+ * a single document.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class DecodeContext {
+    private static final Logger log = LoggerFactory.getLogger(DecodeContext.class);
+
+    public static final int DEFAULT_MAX_DEPTH = 8;
+
+    /**
+     * Decodes a nested JSON value into the matching {@link ASType}.
+     */
+    @FunctionalInterface
+    public interface ValueDecoder {
+        /**
+         * @param value a JSON object or an IRI.
+         * @param context the context of the document being decoded.
+         * @return the decoded value, or null if it can't be decoded.
+         */
+        ASType decode(JsonValue value, DecodeContext context);
+    }
+
+    private final int maxDepth;
+    private final ValueDecoder decoder;
+    private final Map<String, Decoded> instances = new HashMap<>();
+    private int depth;
+
+    /**
+     * @param maxDepth how many levels of nested objects are decoded, deeper values are dropped.
+     * @param decoder decodes each nested value.
+     */
+    public DecodeContext(final int maxDepth, final ValueDecoder decoder) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth can't be negative: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        this.decoder = decoder;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns how many nested objects are being decoded, 0 while decoding the top-level object.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Decodes a nested value. When the value is an array, the first element that can be decoded is used.
+     *
+     * @param value the JSON value of the property.
+     * @param type the type the property accepts.
+     * @param <T> the type the property accepts.
+     * @return the decoded value, or null if it can't be decoded, is malformed, is not of the given type, or is
+     * too deep.
+     */
+    public <T extends ASType> T decode(final JsonValue value, final Class<T> type) {
+        if (value instanceof JsonArray array) {
+            for (final var element : array) {
+                final var decoded = decode(element, type);
+                if (decoded != null) {
+                    return decoded;
+                }
+            }
+            return null;
+        }
+
+        final var object = value instanceof JsonObject json ? json : null;
+        final var id = object != null ? idOf(object) : null;
+        final var previous = id != null ? instances.get(id) : null;
+        final ASType decoded;
+        if (previous != null && previous.json().equals(object) && previous.levelsLeft() >= maxDepth - depth) {
+            decoded = previous.instance();
+        } else {
+            if (depth >= maxDepth) {
+                log.atDebug().setMessage("Nested value too deep, dropped: depth={}, value={}")
+                        .addArgument(depth).addArgument(value).log();
+                return null;
+            }
+            depth++;
+            try {
+                decoded = decoder.decode(value, this);
+            } catch (RuntimeException e) {
+                // a malformed nested value, such as an invalid IRI, only drops that value
+                log.atWarn().setMessage("Malformed nested value, dropped: {}, value={}")
+                        .addArgument(e.toString()).addArgument(value).log();
+                return null;
+            } finally {
+                depth--;
+            }
+            if (decoded == null) {
+                return null;
+            }
+            if (id != null) {
+                instances.put(id, new Decoded(object, maxDepth - depth, decoded));
+            }
+        }
+
+        if (!type.isInstance(decoded)) {
+            log.atWarn().setMessage("Unexpected nested type: expected={}, type={}")
+                    .addArgument(type.getSimpleName()).addArgument(decoded.getType()).log();
+            return null;
+        }
+        return type.cast(decoded);
+    }
+
+    private static String idOf(final JsonObject object) {
+        var id = object.get(ASProperties.ID);
+        if (id == null) {
+            id = object.get(Keywords.ID);
+        }
+        return id instanceof JsonString str ? str.getString() : null;
+    }
+
+    /**
+     * A decoded object, along with its JSON and how many levels of nesting, itself included, were left when
+     * decoding it.
+     */
+    private record Decoded(JsonObject json, int levelsLeft, ASType instance) {
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+/**
+ * Digest algorithms that can be computed while serializing, with the names used by the {@code Digest}
+ * (RFC 3230) and {@code Content-Digest} (RFC 9530) HTTP headers.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public enum DigestAlgorithm {
+    SHA_256("SHA-256", "SHA-256", "sha-256"),
+    SHA_512("SHA-512", "SHA-512", "sha-512");
+
+    private final String jcaName;
+    private final String digestName;
+    private final String contentDigestName;
+
+    DigestAlgorithm(final String jcaName, final String digestName, final String contentDigestName) {
+        this.jcaName = jcaName;
+        this.digestName = digestName;
+        this.contentDigestName = contentDigestName;
+    }
+
+    /**
+     * Returns the name of the algorithm for {@link java.security.MessageDigest#getInstance(String)}.
+     *
+     * @return the JCA algorithm name.
+     */
+    public String getJcaName() {
+        return jcaName;
+    }
+
+    /**
+     * Returns the name of the algorithm in a {@code Digest} header.
+     *
+     * @return the RFC 3230 algorithm name.
+     */
+    public String getDigestName() {
+        return digestName;
+    }
+
+    /**
+     * Returns the name of the algorithm in a {@code Content-Digest} header.
+     *
+     * @return the RFC 9530 algorithm key.
+     */
+    public String getContentDigestName() {
+        return contentDigestName;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Serialized UTF-8 payload together with the digest computed while it was being written.
+ * <p>
+ * The arrays are not copied, they belong to whoever requested the payload.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class DigestedPayload {
+    private final byte[] payload;
+    private final DigestAlgorithm algorithm;
+    private final byte[] digest;
+
+    DigestedPayload(final byte[] payload, final DigestAlgorithm algorithm, final byte[] digest) {
+        this.payload = payload;
+        this.algorithm = algorithm;
+        this.digest = digest;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public byte[] getDigest() {
+        return digest;
+    }
+
+    /**
+     * Returns the payload decoded as a string.
+     *
+     * @return the JSON text.
+     */
+    public String getPayloadAsString() {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the value of the {@code Digest} header for this payload, e.g. {@code SHA-256=X48E9q...}.
+     *
+     * @return the RFC 3230 header value.
+     */
+    public String toDigestHeader() {
+        return algorithm.getDigestName() + "=" + Base64.getEncoder().encodeToString(digest);
+    }
+
+    /**
+     * Returns the value of the {@code Content-Digest} header for this payload, e.g. {@code sha-256=:X48E9q...:}.
+     *
+     * @return the RFC 9530 header value.
+     */
+    public String toContentDigestHeader() {
+        return algorithm.getContentDigestName() + "=:" + Base64.getEncoder().encodeToString(digest) + ":";
+    }
+
+    @Override
+    public String toString() {
+        return "[DigestedPayload: {size=" + payload.length + ", " +
+                "digest=" + toDigestHeader() +
+                "}]";
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.net.URI;
+
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.NaturalValue;
+
+/**
+ * Receives the properties of an {@link ASType} that are set, by their AS2 term, in the order the codec writes
+ * them, which is the canonical order of the terms. Lets other serializations walk the model without building
+ * its JSON first.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ * @see ASType#visitProperties(PropertyVisitor)
+ */
+public interface PropertyVisitor {
+    void visitUri(String name, URI value);
+
+    void visitString(String name, String value);
+
+    void visitInt(String name, int value);
+
+    void visitNaturalValue(String name, NaturalValue value);
+
+    void visitObject(String name, ASType value);
+}
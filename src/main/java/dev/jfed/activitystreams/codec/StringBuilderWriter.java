@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import java.io.Writer;
+
+/**
+ * Unsynchronized {@link Writer} over a {@link StringBuilder} that can be cleared and reused.
+ * <p>
+ * Buffers that grew over {@code maxRetainedCapacity} while writing a large document are dropped on
+ * {@link #reset()}, so a single big message doesn't pin its memory to the owning codec forever.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+final class StringBuilderWriter extends Writer {
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+    private StringBuilder buffer;
+
+    StringBuilderWriter(final int initialCapacity, final int maxRetainedCapacity) {
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.buffer = new StringBuilder(initialCapacity);
+    }
+
+    void reset() {
+        if (buffer.capacity() > maxRetainedCapacity) {
+            buffer = new StringBuilder(initialCapacity);
+        } else {
+            buffer.setLength(0);
+        }
+    }
+
+    @Override
+    public void write(final int c) {
+        buffer.append((char) c);
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) {
+        buffer.append(cbuf, off, len);
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) {
+        buffer.append(str, off, off + len);
+    }
+
+    @Override
+    public Writer append(final CharSequence csq) {
+        buffer.append(csq);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        // nothing to flush
+    }
+
+    @Override
+    public void close() {
+        // the buffer is reused, closing is a no-op
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codegen;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a getter or a builder method to an Activity Streams property for the codec generated by
+ * {@link GenerateCodec}.
+ * <p>
+ * Supported types are {@code String}, {@code URI}, {@code int}/{@code Integer}, {@code NaturalValue} and
+ * {@code ASType}. A {@code NaturalValue} property also maps its {@code <property>Map} counterpart.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface ASProperty {
+
+    /**
+     * Returns the name of the property in the compacted document, see {@code ASProperties}.
+     *
+     * @return the property name.
+     */
+    String value();
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codegen;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@code ASType} subclass for which a {@code <Type>Codec} class is generated at compile time, in the
+ * same package as the type.
+ * <p>
+ * The generated codec encodes every getter of the type (and its superclasses) annotated with
+ * {@link ASProperty}, and decodes into the nested builder class by calling its {@link ASProperty} methods.
+ * Properties that can be read but have no builder method are expected to be set when creating the builder.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateCodec {
+}
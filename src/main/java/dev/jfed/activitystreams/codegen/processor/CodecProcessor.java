@@ -0,0 +1,532 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codegen.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code <Type>Codec} class for every type annotated with
+ * {@code dev.jfed.activitystreams.codegen.GenerateCodec}.
+ * <p>
+ * The generated class has four static methods: {@code decode} maps a compacted JSON object into the type's
+ * builder with a string {@code switch} over the property names, recording a {@code MappingEvent}, and hands
+ * nested objects to the document's {@code DecodeContext}, {@code encode} adds the properties to a
+ * {@code JsonObjectBuilder}, {@code write} streams them to a {@code JsonGenerator}, and {@code visit} hands them
+ * to a {@code PropertyVisitor}, all of them in the canonical order of the property names. It also has
+ * structural {@code equals} and {@code hashCode} methods over the same properties. Property values are
+ * read through the annotated getters and written through the annotated builder methods, so there's no
+ * reflection at runtime.
+ * <p>
+ * The processor only refers to the annotations by name, so it can be compiled before them.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+@SupportedAnnotationTypes(CodecProcessor.GENERATE_CODEC)
+@SupportedSourceVersion(SourceVersion.RELEASE_17)
+public class CodecProcessor extends AbstractProcessor {
+    static final String GENERATE_CODEC = "dev.jfed.activitystreams.codegen.GenerateCodec";
+    static final String AS_PROPERTY = "dev.jfed.activitystreams.codegen.ASProperty";
+    static final String CODEC_SUPPORT = "dev.jfed.activitystreams.codec.CodecSupport";
+    static final String DECODE_CONTEXT = "dev.jfed.activitystreams.codec.DecodeContext";
+    static final String PROPERTY_VISITOR = "dev.jfed.activitystreams.codec.PropertyVisitor";
+    static final String MAPPING_EVENT = "dev.jfed.activitystreams.jfr.MappingEvent";
+    static final String OUTCOME = "dev.jfed.activitystreams.jfr.ActivityStreamsEvent.Outcome";
+    static final String AS_TYPE_CLASS = "dev.jfed.activitystreams.ASType";
+    static final String NATURAL_VALUE_CLASS = "dev.jfed.activitystreams.NaturalValue";
+    static final String CODEC_SUFFIX = "Codec";
+    static final String MAP_SUFFIX = "Map";
+
+    /**
+     * Kind of value a property holds, which decides how it's converted to and from JSON.
+     */
+    enum ValueKind {
+        STRING, URI, INT, INTEGER, NATURAL_VALUE, OBJECT
+    }
+
+    /**
+     * A property read through a getter or written through a builder method.
+     */
+    record Property(String name, String method, String javaType, ValueKind kind) {
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@GenerateCodec can only be used on classes");
+                    continue;
+                }
+                generate((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(final TypeElement type) {
+        final var builder = findBuilder(type);
+        if (builder == null) {
+            error(type, "@GenerateCodec type has no nested builder with @ASProperty methods");
+            return;
+        }
+        final List<Property> getters = new ArrayList<>();
+        for (TypeElement t : hierarchy(type)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(t.getEnclosedElements())) {
+                final var name = propertyName(method);
+                if (name != null && checkGetter(method)) {
+                    final var kind = kindOf(method, method.getReturnType());
+                    if (kind != null) {
+                        getters.add(new Property(name, method.getSimpleName().toString(),
+                                method.getReturnType().toString(), kind));
+                    }
+                }
+            }
+        }
+        // canonical order, so the output doesn't depend on how the type declares its properties
+        getters.sort(Comparator.comparing(Property::name));
+        final List<Property> setters = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(builder.getEnclosedElements())) {
+            final var name = propertyName(method);
+            if (name != null && checkSetter(method)) {
+                final var paramType = method.getParameters().get(0).asType();
+                final var kind = kindOf(method, paramType);
+                if (kind != null) {
+                    setters.add(new Property(name, method.getSimpleName().toString(), paramType.toString(), kind));
+                }
+            }
+        }
+
+        final var packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        final var codecName = type.getSimpleName() + CODEC_SUFFIX;
+        try (var out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(packageName + "." + codecName, type).openWriter())) {
+            new CodecWriter(out, packageName, codecName, type.getQualifiedName().toString(),
+                    builder.getQualifiedName().toString(), getters, setters).write();
+        } catch (IOException e) {
+            error(type, "Unable to write " + codecName + ": " + e.getMessage());
+        }
+    }
+
+    private TypeElement findBuilder(final TypeElement type) {
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            for (ExecutableElement method : ElementFilter.methodsIn(nested.getEnclosedElements())) {
+                if (propertyName(method) != null) {
+                    return nested;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the type and its superclasses, starting from the topmost one so inherited properties come first.
+     */
+    private Deque<TypeElement> hierarchy(final TypeElement type) {
+        final Deque<TypeElement> types = new ArrayDeque<>();
+        TypeMirror current = type.asType();
+        while (current.getKind() == TypeKind.DECLARED) {
+            final var element = (TypeElement) ((DeclaredType) current).asElement();
+            types.addFirst(element);
+            current = element.getSuperclass();
+        }
+        return types;
+    }
+
+    private String propertyName(final ExecutableElement method) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            final var annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(AS_PROPERTY)) {
+                for (var entry : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return (String) ((AnnotationValue) entry.getValue()).getValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean checkGetter(final ExecutableElement method) {
+        if (!method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID
+                || !method.getModifiers().contains(Modifier.PUBLIC)) {
+            error(method, "@ASProperty getters must be public and take no arguments");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean checkSetter(final ExecutableElement method) {
+        if (method.getParameters().size() != 1 || method.getModifiers().contains(Modifier.PRIVATE)) {
+            error(method, "@ASProperty builder methods must take a single argument and not be private");
+            return false;
+        }
+        return true;
+    }
+
+    private ValueKind kindOf(final Element element, final TypeMirror type) {
+        final var types = processingEnv.getTypeUtils();
+        final var elements = processingEnv.getElementUtils();
+        if (type.getKind() == TypeKind.INT) {
+            return ValueKind.INT;
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            final var name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            switch (name) {
+                case "java.lang.String":
+                    return ValueKind.STRING;
+                case "java.net.URI":
+                    return ValueKind.URI;
+                case "java.lang.Integer":
+                    return ValueKind.INTEGER;
+                case NATURAL_VALUE_CLASS:
+                    return ValueKind.NATURAL_VALUE;
+                default:
+                    final var asType = elements.getTypeElement(AS_TYPE_CLASS);
+                    if (asType != null && types.isAssignable(type, asType.asType())) {
+                        return ValueKind.OBJECT;
+                    }
+            }
+        }
+        error(element, "Unsupported @ASProperty type: " + type);
+        return null;
+    }
+
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * Writes the source of a generated codec.
+     */
+    static final class CodecWriter {
+        private final PrintWriter out;
+        private final String packageName;
+        private final String codecName;
+        private final String typeName;
+        private final String builderName;
+        private final List<Property> getters;
+        private final List<Property> setters;
+
+        CodecWriter(final PrintWriter out, final String packageName, final String codecName, final String typeName,
+                    final String builderName, final List<Property> getters, final List<Property> setters) {
+            this.out = out;
+            this.packageName = packageName;
+            this.codecName = codecName;
+            this.typeName = typeName;
+            this.builderName = builderName;
+            this.getters = getters;
+            this.setters = setters;
+        }
+
+        void write() {
+            out.println("package " + packageName + ";");
+            out.println();
+            out.println("import java.util.Map;");
+            out.println();
+            out.println("import jakarta.json.JsonObject;");
+            out.println("import jakarta.json.JsonObjectBuilder;");
+            out.println("import jakarta.json.JsonValue;");
+            out.println("import jakarta.json.stream.JsonGenerator;");
+            out.println("import org.slf4j.Logger;");
+            out.println("import org.slf4j.LoggerFactory;");
+            out.println();
+            out.println("/**");
+            out.println(" * Codec for {@link " + typeName + "}, generated from its @ASProperty methods.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + CodecProcessor.class.getName() + "\")");
+            out.println("final class " + codecName + " {");
+            out.println("    private static final Logger log = LoggerFactory.getLogger(" + typeName + ".class);");
+            out.println();
+            for (Property property : getters) {
+                out.println("    static final String " + constant(property.name()) + " = \"" + property.name() + "\";");
+                if (property.kind() == ValueKind.NATURAL_VALUE) {
+                    out.println("    static final String " + constant(property.name() + MAP_SUFFIX) + " = \""
+                            + property.name() + MAP_SUFFIX + "\";");
+                }
+            }
+            out.println();
+            out.println("    private " + codecName + "() {}");
+            out.println();
+            writeDecode();
+            out.println();
+            writeEncode();
+            out.println();
+            writeStreaming();
+            out.println();
+            writeVisit();
+            out.println();
+            writeEquality();
+            out.println("}");
+        }
+
+        private void writeDecode() {
+            out.println("    static void decode(final " + builderName + " builder, final JsonObject object, final "
+                    + DECODE_CONTEXT + " context) {");
+            out.println("        final " + MAPPING_EVENT + " event = new " + MAPPING_EVENT + "();");
+            out.println("        event.begin();");
+            out.println("        " + OUTCOME + " outcome = " + OUTCOME + ".FAILED;");
+            out.println("        try {");
+            out.println("            decodeProperties(builder, object, context);");
+            out.println("            outcome = " + OUTCOME + ".SUCCESS;");
+            out.println("        } finally {");
+            out.println("            if (event.shouldCommit()) {");
+            out.println("                event.setPropertyCount(object.size());");
+            out.println("                event.setOutcome(outcome);");
+            out.println("                " + CODEC_SUPPORT + ".describe(event, object);");
+            out.println("                event.commit();");
+            out.println("            }");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    private static void decodeProperties(final " + builderName + " builder, "
+                    + "final JsonObject object, final " + DECODE_CONTEXT + " context) {");
+            // a natural language value can come both as a plain string and as a language map, so it's collected
+            // from both properties before setting it
+            final var naturalValues = setters.stream().filter(s -> s.kind() == ValueKind.NATURAL_VALUE).toList();
+            for (Property setter : naturalValues) {
+                out.println("        " + NATURAL_VALUE_CLASS + " " + local(setter) + " = null;");
+            }
+            out.println("        for (Map.Entry<String, JsonValue> property : object.entrySet()) {");
+            out.println("            final JsonValue value = property.getValue();");
+            out.println("            switch (property.getKey()) {");
+            final Set<String> ignored = new LinkedHashSet<>(List.of("@context", "@type", "type"));
+            for (Property getter : getters) {
+                if (setters.stream().noneMatch(s -> s.name().equals(getter.name()))) {
+                    ignored.add(getter.name());
+                }
+            }
+            out.println("                case " + quoteAll(ignored) + ":");
+            out.println("                    // set when creating the builder, or not a property");
+            out.println("                    break;");
+            for (Property setter : setters) {
+                if (setter.kind() == ValueKind.NATURAL_VALUE) {
+                    out.println("                case \"" + setter.name() + "\":");
+                    out.println("                    " + local(setter) + " = " + CODEC_SUPPORT
+                            + ".toNaturalValue(" + local(setter) + ", value);");
+                    out.println("                    break;");
+                    out.println("                case \"" + setter.name() + MAP_SUFFIX + "\":");
+                    out.println("                    " + local(setter) + " = " + CODEC_SUPPORT
+                            + ".mapToNaturalValue(" + local(setter) + ", value);");
+                    out.println("                    break;");
+                } else {
+                    out.println("                case " + quoteAll(aliases(setter.name())) + ":");
+                    out.println("                    builder." + setter.method() + "(" + decodeExpression(setter)
+                            + ");");
+                    out.println("                    break;");
+                }
+            }
+            out.println("                default:");
+            out.println("                    log.atWarn().setMessage(\"Property not found: key={}, value={}\")"
+                    + ".addArgument(property.getKey()).addArgument(value).log();");
+            out.println("            }");
+            out.println("        }");
+            for (Property setter : naturalValues) {
+                out.println("        if (" + local(setter) + " != null) {");
+                out.println("            builder." + setter.method() + "(" + local(setter) + ");");
+                out.println("        }");
+            }
+            out.println("    }");
+        }
+
+        private void writeEncode() {
+            out.println("    static void encode(final " + typeName + " object, final JsonObjectBuilder builder) {");
+            for (Property getter : getters) {
+                final var constant = constant(getter.name());
+                final var value = "object." + getter.method() + "()";
+                switch (getter.kind()) {
+                    case INT -> out.println("        builder.add(" + constant + ", " + value + ");");
+                    case NATURAL_VALUE -> {
+                        openNullCheck(getter);
+                        out.println("            " + CODEC_SUPPORT + ".add(builder, " + constant + ", "
+                                + constant(getter.name() + MAP_SUFFIX) + ", " + local(getter) + ");");
+                        out.println("        }");
+                    }
+                    default -> {
+                        openNullCheck(getter);
+                        out.println("            builder.add(" + constant + ", " + encodeExpression(getter) + ");");
+                        out.println("        }");
+                    }
+                }
+            }
+            out.println("    }");
+        }
+
+        private void writeStreaming() {
+            out.println("    static void write(final " + typeName + " object, final JsonGenerator generator) {");
+            for (Property getter : getters) {
+                final var constant = constant(getter.name());
+                final var value = "object." + getter.method() + "()";
+                switch (getter.kind()) {
+                    case INT -> out.println("        generator.write(" + constant + ", " + value + ");");
+                    case NATURAL_VALUE -> {
+                        openNullCheck(getter);
+                        out.println("            " + CODEC_SUPPORT + ".write(generator, " + constant + ", "
+                                + constant(getter.name() + MAP_SUFFIX) + ", " + local(getter) + ");");
+                        out.println("        }");
+                    }
+                    case OBJECT -> {
+                        openNullCheck(getter);
+                        out.println("            generator.writeKey(" + constant + ");");
+                        out.println("            " + local(getter) + ".writeJson(generator);");
+                        out.println("        }");
+                    }
+                    default -> {
+                        openNullCheck(getter);
+                        out.println("            generator.write(" + constant + ", " + encodeExpression(getter)
+                                + ");");
+                        out.println("        }");
+                    }
+                }
+            }
+            out.println("    }");
+        }
+
+        private void writeVisit() {
+            out.println("    static void visit(final " + typeName + " object, final " + PROPERTY_VISITOR
+                    + " visitor) {");
+            for (Property getter : getters) {
+                final var constant = constant(getter.name());
+                if (getter.kind() == ValueKind.INT) {
+                    out.println("        visitor.visitInt(" + constant + ", object." + getter.method() + "());");
+                    continue;
+                }
+                final var method = switch (getter.kind()) {
+                    case STRING -> "visitString";
+                    case URI -> "visitUri";
+                    case INTEGER -> "visitInt";
+                    case NATURAL_VALUE -> "visitNaturalValue";
+                    default -> "visitObject";
+                };
+                openNullCheck(getter);
+                out.println("            visitor." + method + "(" + constant + ", " + local(getter) + ");");
+                out.println("        }");
+            }
+            out.println("    }");
+        }
+
+        private void writeEquality() {
+            out.println("    static boolean equals(final " + typeName + " a, final " + typeName + " b) {");
+            if (getters.isEmpty()) {
+                out.println("        return true;");
+            }
+            for (int i = 0; i < getters.size(); i++) {
+                final var getter = getters.get(i);
+                final var method = getter.method() + "()";
+                final var comparison = getter.kind() == ValueKind.INT
+                        ? "a." + method + " == b." + method
+                        : "java.util.Objects.equals(a." + method + ", b." + method + ")";
+                out.println((i == 0 ? "        return " : "                && ") + comparison
+                        + (i == getters.size() - 1 ? ";" : ""));
+            }
+            out.println("    }");
+            out.println();
+            out.println("    static int hashCode(final " + typeName + " object) {");
+            out.println("        int result = 1;");
+            for (Property getter : getters) {
+                final var value = "object." + getter.method() + "()";
+                out.println("        result = 31 * result + " + (getter.kind() == ValueKind.INT
+                        ? "Integer.hashCode(" + value + ")"
+                        : "java.util.Objects.hashCode(" + value + ")") + ";");
+            }
+            out.println("        return result;");
+            out.println("    }");
+        }
+
+        private void openNullCheck(final Property getter) {
+            out.println("        final " + getter.javaType() + " " + local(getter) + " = object." + getter.method()
+                    + "();");
+            out.println("        if (" + local(getter) + " != null) {");
+        }
+
+        private String decodeExpression(final Property setter) {
+            return switch (setter.kind()) {
+                case STRING -> CODEC_SUPPORT + ".toString(value)";
+                case URI -> CODEC_SUPPORT + ".toUri(value)";
+                case INT, INTEGER -> CODEC_SUPPORT + ".toInt(value)";
+                case OBJECT -> "context.decode(value, " + setter.javaType() + ".class)";
+                default -> throw new IllegalArgumentException("No decoder for " + setter);
+            };
+        }
+
+        private String encodeExpression(final Property getter) {
+            return switch (getter.kind()) {
+                case STRING -> local(getter);
+                case URI -> local(getter) + ".toString()";
+                case INTEGER -> local(getter) + ".intValue()";
+                case OBJECT -> local(getter) + ".toJsonObject()";
+                default -> throw new IllegalArgumentException("No encoder for " + getter);
+            };
+        }
+
+        private static Set<String> aliases(final String name) {
+            return "id".equals(name) ? new LinkedHashSet<>(List.of("@id", "id")) : Set.of(name);
+        }
+
+        private static String quoteAll(final Set<String> names) {
+            final var sb = new StringBuilder();
+            for (String name : names) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append('"').append(name).append('"');
+            }
+            return sb.toString();
+        }
+
+        private static String local(final Property property) {
+            return "value" + Character.toUpperCase(property.name().charAt(0)) + property.name().substring(1);
+        }
+
+        private static String constant(final String name) {
+            final var sb = new StringBuilder();
+            for (char c : name.toCharArray()) {
+                if (Character.isUpperCase(c)) {
+                    sb.append('_');
+                }
+                sb.append(Character.toUpperCase(c));
+            }
+            return sb.toString();
+        }
+    }
+}
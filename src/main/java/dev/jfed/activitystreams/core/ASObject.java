@@ -20,26 +20,28 @@ import com.apicatalog.jsonld.lang.Keywords;
 import dev.jfed.activitystreams.ASProperties;
 import dev.jfed.activitystreams.ASType;
 import dev.jfed.activitystreams.NaturalValue;
+import dev.jfed.activitystreams.codec.DecodeContext;
+import dev.jfed.activitystreams.codec.PropertyVisitor;
+import dev.jfed.activitystreams.codegen.ASProperty;
+import dev.jfed.activitystreams.codegen.GenerateCodec;
 import jakarta.json.Json;
-import jakarta.json.JsonString;
+import jakarta.json.JsonObject;
 import jakarta.json.JsonStructure;
-import jakarta.json.JsonValue;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import jakarta.json.stream.JsonGenerator;
 
 import java.net.URI;
-import java.util.Map;
 import java.util.Optional;
 
 /**
  * @author Guillermo Castro
  * @since 0.0.1
  */
+@GenerateCodec
 public class ASObject extends ASType {
-    private static final Logger log = LoggerFactory.getLogger(ASObject.class);
-
     public static final String TYPE = "Object";
 
+    private ASType preview;
+
     private ASObject() {
 
     }
@@ -49,6 +51,17 @@ public class ASObject extends ASType {
         return TYPE;
     }
 
+    /**
+     * Returns a preview of this object, either a Link or an Object.
+     *
+     * @return the preview, or null if there's none.
+     * @see <a href="https://www.w3.org/TR/activitystreams-vocabulary/#dfn-preview">Vocabulary#preview</a>
+     */
+    @ASProperty(ASProperties.PREVIEW)
+    public ASType getPreview() {
+        return preview;
+    }
+
     public static ASObjectBuilder builder() {
         return new ASObjectBuilder();
     }
@@ -57,75 +70,187 @@ public class ASObject extends ASType {
         private final ASObject asObject;
 
         ASObjectBuilder() {
-            asObject = new ASObject();
+            this(new ASObject());
+        }
+
+        private ASObjectBuilder(final ASObject target) {
+            asObject = target;
         }
 
+        @ASProperty(ASProperties.NAME)
         public ASObjectBuilder withName(NaturalValue name) {
             asObject.name = name;
             return this;
         }
 
+        @ASProperty(ASProperties.ID)
         public ASObjectBuilder withId(URI id) {
             asObject.setId(id);
             return this;
         }
 
+        @ASProperty(ASProperties.PREVIEW)
+        public ASObjectBuilder withPreview(ASType preview) {
+            asObject.preview = preview;
+            return this;
+        }
+
         public ASObject build() {
             return asObject;
         }
     }
 
     public static Optional<ASObject> fromJson(String json) {
-        final var optObj = fromJsonToObject(json);
-        if (optObj.isPresent()) {
-            ASObjectBuilder builder = ASObject.builder();
-            optObj.get().entrySet().forEach(entry -> processEntry(builder, entry));
+        return fromJson(json, new ASObject());
+    }
+
+    /**
+     * Decodes an object, along with its nested objects up to the given depth.
+     *
+     * @param json the JSON document.
+     * @param maxDepth how many levels of nested objects to decode, 0 to ignore them.
+     * @return the object, or empty if the JSON couldn't be decoded.
+     */
+    public static Optional<ASObject> fromJson(String json, int maxDepth) {
+        return fromJsonObject(fromJsonToObject(json), new ASObject(), maxDepth);
+    }
+
+    /**
+     * Decodes the given JSON into an existing object, replacing all of its properties.
+     * <p>
+     * Meant for stream processing, where the same target can be reused for every message once the previous
+     * one has been handled. The target is left untouched if the JSON can't be decoded.
+     *
+     * @param json the JSON document.
+     * @param target the object to decode into.
+     * @return the target object, or empty if the JSON couldn't be decoded.
+     */
+    public static Optional<ASObject> fromJson(String json, ASObject target) {
+        return fromJsonObject(fromJsonToObject(json), target, DecodeContext.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Decodes an object from a UTF-8 encoded JSON document, without converting it to a String first.
+     *
+     * @param json the JSON document.
+     * @return the object, or empty if the JSON couldn't be decoded.
+     */
+    public static Optional<ASObject> fromJson(byte[] json) {
+        return fromJson(json, DecodeContext.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Decodes an object from a UTF-8 encoded JSON document, along with its nested objects up to the given depth.
+     *
+     * @param json the JSON document.
+     * @param maxDepth how many levels of nested objects to decode, 0 to ignore them.
+     * @return the object, or empty if the JSON couldn't be decoded.
+     */
+    public static Optional<ASObject> fromJson(byte[] json, int maxDepth) {
+        return fromJsonObject(fromJsonToObject(json), new ASObject(), maxDepth);
+    }
 
-            return Optional.of(builder.build());
+    private static Optional<ASObject> fromJsonObject(final Optional<JsonObject> optObj, final ASObject target,
+                                                     final int maxDepth) {
+        if (optObj.isPresent()) {
+            target.id = null;
+            target.name = null;
+            target.preview = null;
+            return Optional.of(fromJsonObject(optObj.get(), new ASObjectBuilder(target),
+                    EmbeddedTypes.newContext(maxDepth)));
         }
         return Optional.empty();
     }
 
+    /**
+     * Applies an update to this object, returning a new object with the properties present in the update
+     * replaced and the rest shared with this one, including their name and preview instances. This object is
+     * left untouched, and returned as is when the update doesn't change any property.
+     * <p>
+     * The update can be the partial object or the {@code Update} activity embedding it. JSON-LD processing drops
+     * {@code null} values, so a property can't be removed with a partial update.
+     *
+     * @param json the update.
+     * @return the updated object, or empty if the update couldn't be decoded or is for a different object.
+     */
+    public Optional<ASObject> applyUpdate(String json) {
+        return applyUpdate(fromJsonToObject(json));
+    }
+
+    /**
+     * Applies an update from a UTF-8 encoded JSON document.
+     *
+     * @param json the update.
+     * @return the updated object, or empty if the update couldn't be decoded or is for a different object.
+     * @see #applyUpdate(String)
+     */
+    public Optional<ASObject> applyUpdate(byte[] json) {
+        return applyUpdate(fromJsonToObject(json));
+    }
+
+    private Optional<ASObject> applyUpdate(final Optional<JsonObject> document) {
+        return toUpdateDelta(document).map(delta -> {
+            final var copy = new ASObject();
+            copy.id = id;
+            copy.name = name;
+            copy.preview = preview;
+            final var updated = fromJsonObject(delta, new ASObjectBuilder(copy),
+                    EmbeddedTypes.newContext(DecodeContext.DEFAULT_MAX_DEPTH));
+            return equals(updated) ? this : updated;
+        });
+    }
+
+    static ASObject fromJsonObject(final JsonObject jsonObject, final ASObjectBuilder builder,
+                                   final DecodeContext context) {
+        ASObjectCodec.decode(builder, jsonObject, context);
+        return builder.build();
+    }
+
     @Override
     public JsonStructure toJsonObject() {
         final var builder = Json.createObjectBuilder()
-                .add(Keywords.CONTEXT, CONTEXT_VALUE);
-        Optional.ofNullable(id).ifPresent(i -> builder.add(ASProperties.ID, i.toString()));
-        builder.add(ASProperties.TYPE, getType());
-
-        mapNameToJsonValue().ifPresent(objects -> builder.add(objects.getValue0(), objects.getValue1()));
+                .add(Keywords.CONTEXT, CONTEXT_VALUE)
+                .add(ASProperties.TYPE, getType());
+        ASObjectCodec.encode(this, builder);
 
         return builder.build();
     }
 
+    @Override
+    public void writeJson(JsonGenerator generator) {
+        generator.writeStartObject()
+                .write(Keywords.CONTEXT, CONTEXT_VALUE)
+                .write(ASProperties.TYPE, getType());
+        ASObjectCodec.write(this, generator);
+        generator.writeEnd();
+    }
+
+    @Override
+    public void visitProperties(PropertyVisitor visitor) {
+        ASObjectCodec.visit(this, visitor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return ASObjectCodec.equals(this, (ASObject) o);
+    }
+
+    @Override
+    public int hashCode() {
+        return ASObjectCodec.hashCode(this);
+    }
+
     @Override
     public String toString() {
         return "[ASObject: {" +
                 "name=" + name + ", " +
+                "preview=" + preview +
                 "}]";
     }
-
-    private static void processEntry(final ASObjectBuilder builder, final Map.Entry<String, JsonValue> property) {
-        JsonValue value = property.getValue();
-        switch (property.getKey()) {
-            case Keywords.CONTEXT, Keywords.TYPE, ASProperties.TYPE:
-                // ignore
-                break;
-            case Keywords.ID, ASProperties.ID:
-                builder.withId(URI.create(((JsonString)value).getString()));
-                break;
-            case ASProperties.NAME:
-                final var name = ((JsonString)value).getString();
-                builder.withName(NaturalValue.builder().withValue(name).build());
-                break;
-            case ASProperties.NAME_MAP:
-                final var valueBuilder = NaturalValue.builder();
-                property.getValue().asJsonObject()
-                        .forEach((k, v) -> valueBuilder.withValue(k, ((JsonString)v).getString()));
-                builder.withName(valueBuilder.build());
-                break;
-            default:
-                log.atWarn().setMessage("Property not found: key={}, value={}").addArgument(property.getKey()).addArgument(property.getValue()).log();
-        }
-    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.core;
+
+import java.net.URI;
+import java.util.Set;
+
+import com.apicatalog.jsonld.lang.Keywords;
+import dev.jfed.activitystreams.ASProperties;
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.codec.DecodeContext;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+/**
+ * Decodes nested values into the core types: links for the Link types and for bare IRIs, which the vocabulary
+ * treats as the href of a Link, and objects for everything else.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+final class EmbeddedTypes {
+    private static final Set<String> LINK_TYPES = Set.of(Link.TYPE, "Mention");
+
+    private EmbeddedTypes() {
+    }
+
+    static DecodeContext newContext(final int maxDepth) {
+        return new DecodeContext(maxDepth, EmbeddedTypes::decode);
+    }
+
+    static ASType decode(final JsonValue value, final DecodeContext context) {
+        if (value instanceof JsonString iri) {
+            try {
+                return new Link.LinkBuilder(URI.create(iri.getString())).build();
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        if (value instanceof JsonObject object) {
+            if (isLink(object)) {
+                return Link.fromJsonObject(object, context);
+            }
+            return ASObject.fromJsonObject(object, ASObject.builder(), context);
+        }
+        return null;
+    }
+
+    private static boolean isLink(final JsonObject object) {
+        var type = object.get(ASProperties.TYPE);
+        if (type == null) {
+            type = object.get(Keywords.TYPE);
+        }
+        if (type instanceof JsonString str) {
+            return LINK_TYPES.contains(str.getString());
+        }
+        if (type instanceof JsonArray types) {
+            for (final var t : types) {
+                if (t instanceof JsonString str && LINK_TYPES.contains(str.getString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
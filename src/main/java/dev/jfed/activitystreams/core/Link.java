@@ -17,23 +17,27 @@
 package dev.jfed.activitystreams.core;
 
 import java.net.URI;
-import java.util.Map;
 import java.util.Optional;
 
 import dev.jfed.activitystreams.NaturalValue;
 import dev.jfed.activitystreams.ASProperties;
 import dev.jfed.activitystreams.ASType;
-import jakarta.json.JsonNumber;
+import dev.jfed.activitystreams.codec.DecodeContext;
+import dev.jfed.activitystreams.codec.PropertyVisitor;
+import dev.jfed.activitystreams.codegen.ASProperty;
+import dev.jfed.activitystreams.codegen.GenerateCodec;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
 import jakarta.json.JsonStructure;
+import jakarta.json.stream.JsonGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.apicatalog.jsonld.lang.Keywords;
 
 import jakarta.json.Json;
-import jakarta.json.JsonString;
-import jakarta.json.JsonValue;
 
+@GenerateCodec
 public class Link extends ASType {
     private static final Logger log = LoggerFactory.getLogger(Link.class);
 
@@ -48,6 +52,7 @@ public class Link extends ASType {
     private final ASType preview;
 
     private Link(final LinkBuilder linkBuilder) {
+        this.id = linkBuilder.id;
         this.href = linkBuilder.href;
         this.rel = linkBuilder.rel;
         this.mediaType = linkBuilder.mediaType;
@@ -60,6 +65,7 @@ public class Link extends ASType {
 
     public static class LinkBuilder {
         private final URI href;
+        private URI id;
         private String rel;
         private NaturalValue name;
         private String mediaType;
@@ -72,36 +78,61 @@ public class Link extends ASType {
             this.href = href;
         }
 
+        private LinkBuilder(final URI href, final Link source) {
+            this.href = href;
+            this.id = source.id;
+            this.rel = source.rel;
+            this.name = source.name;
+            this.mediaType = source.mediaType;
+            this.hreflang = source.hreflang;
+            this.height = source.height;
+            this.width = source.width;
+            this.preview = source.preview;
+        }
+
+        @ASProperty(ASProperties.ID)
+        public LinkBuilder id(URI id) {
+            this.id = id;
+            return this;
+        }
+
+        @ASProperty(ASProperties.REL)
         public LinkBuilder rel(String rel) {
             this.rel = rel;
             return this;
         }
 
+        @ASProperty(ASProperties.MEDIA_TYPE)
         public LinkBuilder mediaType(String mediaType) {
             this.mediaType = mediaType;
             return this;
         }
 
+        @ASProperty(ASProperties.NAME)
         public LinkBuilder name(NaturalValue name) {
             this.name = name;
             return this;
         }
 
+        @ASProperty(ASProperties.HREFLANG)
         public LinkBuilder hreflang(String hreflang) {
             this.hreflang = hreflang;
             return this;
         }
 
+        @ASProperty(ASProperties.HEIGHT)
         public LinkBuilder height(int height) {
             this.height = height;
             return this;
         }
 
+        @ASProperty(ASProperties.WIDTH)
         public LinkBuilder width(int width) {
             this.width = width;
             return this;
         }
 
+        @ASProperty(ASProperties.PREVIEW)
         public LinkBuilder preview(ASType previewObj) {
             // TODO validate this is either a Link or an Object
             this.preview = previewObj;
@@ -118,34 +149,57 @@ public class Link extends ASType {
         return TYPE;
     }
 
+    @ASProperty(ASProperties.HREF)
     public URI getHref() {
         return href;
     }
 
+    @ASProperty(ASProperties.REL)
     public String getRel() {
         return rel;
     }
 
+    @ASProperty(ASProperties.MEDIA_TYPE)
     public String getMediaType() {
         return mediaType;
     }
 
+    @ASProperty(ASProperties.HREFLANG)
     public String getHreflang() {
         return hreflang;
     }
 
+    @ASProperty(ASProperties.HEIGHT)
     public Integer getHeight() {
         return height;
     }
 
+    @ASProperty(ASProperties.WIDTH)
     public Integer getWidth() {
         return width;
     }
 
+    @ASProperty(ASProperties.PREVIEW)
     public ASType getPreview() {
         return preview;
     }    
     
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return LinkCodec.equals(this, (Link) o);
+    }
+
+    @Override
+    public int hashCode() {
+        return LinkCodec.hashCode(this);
+    }
+
     @Override
     public String toString() {
         return "[Link: {href=" + href.toString() + ", " +
@@ -163,70 +217,127 @@ public class Link extends ASType {
     public JsonStructure toJsonObject() {
         final var builder = Json.createObjectBuilder()
             .add(Keywords.CONTEXT, CONTEXT_VALUE)
-            .add(ASProperties.TYPE, getType())
-            .add(ASProperties.HREF, href.toString());
-        mapNameToJsonValue().ifPresent(objects -> builder.add(objects.getValue0(), objects.getValue1()));
-
-        Optional.ofNullable(rel).ifPresent(r -> builder.add(ASProperties.REL, r));
-        Optional.ofNullable(mediaType).ifPresent(mt -> builder.add(ASProperties.MEDIA_TYPE, mt));
-        Optional.ofNullable(hreflang).ifPresent(hl -> builder.add(ASProperties.HREFLANG, hl));
-        Optional.ofNullable(height).ifPresent(h -> builder.add(ASProperties.HEIGHT, h));
-        Optional.ofNullable(width).ifPresent(w -> builder.add(ASProperties.WIDTH, w));
-        Optional.ofNullable(preview).ifPresent(p -> builder.add(ASProperties.PREVIEW, p.toJsonObject()));
-        
+            .add(ASProperties.TYPE, getType());
+        LinkCodec.encode(this, builder);
+
         return builder.build();
     }
 
+    @Override
+    public void writeJson(JsonGenerator generator) {
+        generator.writeStartObject()
+            .write(Keywords.CONTEXT, CONTEXT_VALUE)
+            .write(ASProperties.TYPE, getType());
+        LinkCodec.write(this, generator);
+        generator.writeEnd();
+    }
+
+    @Override
+    public void visitProperties(PropertyVisitor visitor) {
+        LinkCodec.visit(this, visitor);
+    }
+
     public static Optional<Link> fromJson(final String json) {
-        final var optObj = fromJsonToObject(json);
-        if (optObj.isPresent()) {
-            final var jsonObject = optObj.get();
-            if (!jsonObject.containsKey(ASProperties.HREF)) {
-                return Optional.empty();
-            }
-            LinkBuilder builder = new Link.LinkBuilder(URI.create(jsonObject.getString(ASProperties.HREF)));
+        return fromJson(json, DecodeContext.DEFAULT_MAX_DEPTH);
+    }
 
-            jsonObject.entrySet().forEach(entry -> processEntry(builder, entry));
+    /**
+     * Decodes a Link, along with its nested objects up to the given depth.
+     *
+     * @param json the JSON document.
+     * @param maxDepth how many levels of nested objects to decode, 0 to ignore them.
+     * @return the link, or empty if the JSON couldn't be decoded.
+     */
+    public static Optional<Link> fromJson(final String json, final int maxDepth) {
+        return fromJsonObject(fromJsonToObject(json), maxDepth);
+    }
 
-            return Optional.of(builder.build());
+    /**
+     * Decodes a Link from a UTF-8 encoded JSON document, without converting it to a String first.
+     *
+     * @param json the JSON document.
+     * @return the link, or empty if the JSON couldn't be decoded.
+     */
+    public static Optional<Link> fromJson(final byte[] json) {
+        return fromJson(json, DecodeContext.DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * Decodes a Link from a UTF-8 encoded JSON document, along with its nested objects up to the given depth.
+     *
+     * @param json the JSON document.
+     * @param maxDepth how many levels of nested objects to decode, 0 to ignore them.
+     * @return the link, or empty if the JSON couldn't be decoded.
+     */
+    public static Optional<Link> fromJson(final byte[] json, final int maxDepth) {
+        return fromJsonObject(fromJsonToObject(json), maxDepth);
+    }
+
+    private static Optional<Link> fromJsonObject(final Optional<JsonObject> optObj, final int maxDepth) {
+        if (optObj.isPresent()) {
+            return Optional.ofNullable(fromJsonObject(optObj.get(), EmbeddedTypes.newContext(maxDepth)));
         } else {
             return Optional.empty();
         }
     }
 
-    private static void processEntry(final LinkBuilder builder, final Map.Entry<String, JsonValue> property) {
-        var value = property.getValue();
-        switch(property.getKey()) {
-            case Keywords.CONTEXT, Keywords.TYPE, ASProperties.TYPE, ASProperties.HREF:
-                // ignore
-                break;
-            case ASProperties.NAME:
-                final var name = ((JsonString)value).getString();
-                builder.name(NaturalValue.builder().withValue(name).build());
-                break;
-            case ASProperties.NAME_MAP:
-                final var valueBuilder = NaturalValue.builder();
-                property.getValue().asJsonObject()
-                        .forEach((k, v) -> valueBuilder.withValue(k, ((JsonString)v).getString()));
-                builder.name(valueBuilder.build());
-                break;
-            case ASProperties.REL:
-                builder.rel(((JsonString)value).getString());
-                break;
-            case ASProperties.MEDIA_TYPE: 
-                builder.mediaType(((JsonString)value).getString());
-                break;
-            case ASProperties.HREFLANG:
-                builder.hreflang(((JsonString)value).getString());
-                break;
-            case ASProperties.HEIGHT:
-                builder.height(((JsonNumber)value).intValue());
-                break;
-            case ASProperties.WIDTH:
-                builder.width(((JsonNumber)value).intValue());
-                break;
-            default:
-                log.atWarn().setMessage("Property not found: key={}, value={}").addArgument(property.getKey()).addArgument(property.getValue()).log();
+    /**
+     * Applies an update to this link, returning a new link with the properties present in the update replaced
+     * and the rest shared with this one, including their name and preview instances. This link is left untouched,
+     * and returned as is when the update doesn't change any property.
+     * <p>
+     * The update can be the partial link or the {@code Update} activity embedding it. JSON-LD processing drops
+     * {@code null} values, so a property can't be removed with a partial update.
+     *
+     * @param json the update.
+     * @return the updated link, or empty if the update couldn't be decoded or is for a different link.
+     */
+    public Optional<Link> applyUpdate(final String json) {
+        return applyUpdate(fromJsonToObject(json));
+    }
+
+    /**
+     * Applies an update from a UTF-8 encoded JSON document.
+     *
+     * @param json the update.
+     * @return the updated link, or empty if the update couldn't be decoded or is for a different link.
+     * @see #applyUpdate(String)
+     */
+    public Optional<Link> applyUpdate(final byte[] json) {
+        return applyUpdate(fromJsonToObject(json));
+    }
+
+    private Optional<Link> applyUpdate(final Optional<JsonObject> document) {
+        return toUpdateDelta(document).flatMap(delta -> {
+            final URI updatedHref;
+            try {
+                updatedHref = delta.get(ASProperties.HREF) instanceof JsonString value
+                        ? URI.create(value.getString())
+                        : href;
+            } catch (IllegalArgumentException e) {
+                log.atWarn().setMessage("Ignoring update with a malformed href: {}")
+                        .addArgument(delta.get(ASProperties.HREF))
+                        .log();
+                return Optional.empty();
+            }
+            final var builder = new LinkBuilder(updatedHref, this);
+            LinkCodec.decode(builder, delta, EmbeddedTypes.newContext(DecodeContext.DEFAULT_MAX_DEPTH));
+            final var updated = builder.build();
+            return Optional.of(equals(updated) ? this : updated);
+        });
+    }
+
+    /**
+     * Decodes a compacted Link, returns null if it has no href.
+     */
+    static Link fromJsonObject(final JsonObject jsonObject, final DecodeContext context) {
+        if (!(jsonObject.get(ASProperties.HREF) instanceof JsonString href)) {
+            return null;
         }
+        LinkBuilder builder = new Link.LinkBuilder(URI.create(href.getString()));
+
+        LinkCodec.decode(builder, jsonObject, context);
+
+        return builder.build();
     }
 }
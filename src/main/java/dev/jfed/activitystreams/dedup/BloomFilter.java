@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.dedup;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fixed-size Bloom filter over string ids, with the time it started receiving ids so it can be used as one
+ * generation of a {@link SeenIdFilter}.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+final class BloomFilter {
+    private final long[] words;
+    private final int bitCount;
+    private final int hashCount;
+    private long startMillis;
+    private int insertions;
+
+    BloomFilter(final int bitCount, final int hashCount, final long startMillis) {
+        this.words = new long[(bitCount + Long.SIZE - 1) / Long.SIZE];
+        this.bitCount = words.length * Long.SIZE;
+        this.hashCount = hashCount;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Returns the number of bits needed to hold {@code expectedInsertions} ids with the given false positive
+     * probability.
+     */
+    static int optimalBitCount(final int expectedInsertions, final double falsePositiveRate) {
+        final double bits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        return (int) Math.min(Integer.MAX_VALUE - Long.SIZE, Math.max(Long.SIZE, Math.ceil(bits)));
+    }
+
+    /**
+     * Returns the number of hash functions that minimizes false positives for the given sizing.
+     */
+    static int optimalHashCount(final int expectedInsertions, final int bitCount) {
+        return Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    boolean mightContain(final long hash) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            final int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void put(final long hash) {
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            final int bit = Math.floorMod(h1 + i * h2, bitCount);
+            words[bit >>> 6] |= 1L << bit;
+        }
+        insertions++;
+    }
+
+    void clear(final long startMillis) {
+        Arrays.fill(words, 0L);
+        this.startMillis = startMillis;
+        this.insertions = 0;
+    }
+
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    int getInsertions() {
+        return insertions;
+    }
+
+    void writeTo(final DataOutput out) throws IOException {
+        out.writeLong(startMillis);
+        out.writeInt(insertions);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    void readFrom(final DataInput in) throws IOException {
+        startMillis = in.readLong();
+        insertions = in.readInt();
+        if (insertions < 0) {
+            throw new IOException("Invalid number of insertions: " + insertions);
+        }
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+    }
+
+    int getBitCount() {
+        return bitCount;
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * 64-bit hash of an id: FNV-1a over the chars followed by the MurmurHash3 finalizer, so both halves are
+     * well mixed for double hashing.
+     */
+    static long hash(final CharSequence id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.dedup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import dev.jfed.activitystreams.codec.ASCodec;
+
+/**
+ * Remembers the ids of recently received activities, so that the copies relays and shared inboxes deliver
+ * again can be dropped before decoding them.
+ * <p>
+ * Ids are kept in two generations of Bloom filters: a new generation is started when the current one is
+ * older than the configured window or has received its expected number of ids, and the oldest one is
+ * discarded. A bounded LRU of exact ids confirms the filter hits, so by default an activity is only reported
+ * as a duplicate if we're sure we've seen it. Memory is fixed at build time regardless of traffic.
+ * <p>
+ * All methods are thread-safe.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class SeenIdFilter {
+    private static final int SNAPSHOT_MAGIC = 0x4a464944;
+    private static final int SNAPSHOT_VERSION = 1;
+    // ids longer than this aren't confirmed after a restore, and bound what a corrupted snapshot can allocate
+    private static final int MAX_SNAPSHOT_ID_BYTES = 64 * 1024;
+
+    private final int expectedInsertions;
+    private final long windowMillis;
+    private final boolean trustFilterOnMiss;
+    private final Clock clock;
+    private final int confirmationCapacity;
+    private final Map<String, Boolean> confirmed;
+    private BloomFilter current;
+    private BloomFilter previous;
+
+    private SeenIdFilter(final SeenIdFilterBuilder builder) {
+        this.expectedInsertions = builder.expectedInsertions;
+        this.windowMillis = builder.window.toMillis();
+        this.trustFilterOnMiss = builder.trustFilterOnMiss;
+        this.clock = builder.clock;
+        final int bitCount = BloomFilter.optimalBitCount(expectedInsertions, builder.falsePositiveRate);
+        final int hashCount = BloomFilter.optimalHashCount(expectedInsertions, bitCount);
+        final long now = clock.millis();
+        this.current = new BloomFilter(bitCount, hashCount, now);
+        this.previous = new BloomFilter(bitCount, hashCount, now);
+        this.confirmationCapacity = builder.confirmationCapacity;
+        this.confirmed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                return size() > confirmationCapacity;
+            }
+        };
+    }
+
+    public static SeenIdFilterBuilder builder() {
+        return new SeenIdFilterBuilder();
+    }
+
+    public static class SeenIdFilterBuilder {
+        private int expectedInsertions = 1_000_000;
+        private double falsePositiveRate = 0.001;
+        private Duration window = Duration.ofHours(1);
+        private int confirmationCapacity = 100_000;
+        private boolean trustFilterOnMiss;
+        private Clock clock = Clock.systemUTC();
+
+        private SeenIdFilterBuilder() {
+        }
+
+        /**
+         * Sets how many ids a generation holds before a new one is started.
+         */
+        public SeenIdFilterBuilder withExpectedInsertions(final int expectedInsertions) {
+            if (expectedInsertions <= 0) {
+                throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+            }
+            this.expectedInsertions = expectedInsertions;
+            return this;
+        }
+
+        /**
+         * Sets the false positive probability of each generation when it's full.
+         */
+        public SeenIdFilterBuilder withFalsePositiveRate(final double falsePositiveRate) {
+            if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+                throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+            }
+            this.falsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        /**
+         * Sets how long a generation receives ids. Ids are remembered between one and two windows, unless
+         * traffic fills the generations sooner.
+         */
+        public SeenIdFilterBuilder withWindow(final Duration window) {
+            if (window.isNegative() || window.isZero()) {
+                throw new IllegalArgumentException("window must be positive: " + window);
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets how many exact ids are kept to confirm filter hits.
+         */
+        public SeenIdFilterBuilder withConfirmationCapacity(final int confirmationCapacity) {
+            if (confirmationCapacity < 0) {
+                throw new IllegalArgumentException("confirmationCapacity can't be negative: " + confirmationCapacity);
+            }
+            this.confirmationCapacity = confirmationCapacity;
+            return this;
+        }
+
+        /**
+         * If true, filter hits that are no longer in the confirmation tier are still reported as duplicates,
+         * trading a false positive rate for remembering more ids than the confirmation tier holds.
+         */
+        public SeenIdFilterBuilder withTrustFilterOnMiss(final boolean trustFilterOnMiss) {
+            this.trustFilterOnMiss = trustFilterOnMiss;
+            return this;
+        }
+
+        public SeenIdFilterBuilder withClock(final Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public SeenIdFilter build() {
+            return new SeenIdFilter(this);
+        }
+    }
+
+    /**
+     * Checks whether the activity in the given JSON was already seen, and marks it as seen. The id is read
+     * with {@link ASCodec#extractId(CharSequence)}, so the document is not decoded.
+     * <p>
+     * The id is marked before the activity is handled, so if it's then rejected, e.g. because its signature
+     * doesn't verify, a genuine retry would be dropped. In that case check with {@link #mightBeDuplicate(URI)}
+     * and only call {@link #markSeen(URI)} once the activity has been handled.
+     *
+     * @param json the JSON document.
+     * @return true if the activity is a duplicate, false if it's new or has no id.
+     */
+    public boolean isDuplicate(final CharSequence json) {
+        final var id = ASCodec.local().extractId(json);
+        return id.isPresent() && checkAndMark(id.get());
+    }
+
+    /**
+     * Checks whether the given id was already seen, and marks it as seen.
+     *
+     * @param id the id of the object, as returned by {@code ASType.getId()}.
+     * @return true if the id is a duplicate, false if it's new or null.
+     * @see #isDuplicate(CharSequence)
+     */
+    public boolean checkAndMark(final URI id) {
+        return id != null && checkAndMark(id.toString());
+    }
+
+    /**
+     * Checks whether the given id was already seen, and marks it as seen.
+     *
+     * @param id the id of the object.
+     * @return true if the id is a duplicate.
+     * @see #isDuplicate(CharSequence)
+     */
+    public synchronized boolean checkAndMark(final String id) {
+        rotateIfNeeded(clock.millis());
+        final long hash = BloomFilter.hash(id);
+        final boolean duplicate = contains(id, hash);
+        mark(id, hash);
+        return duplicate;
+    }
+
+    /**
+     * Checks whether the given id was already seen, without marking it.
+     *
+     * @param id the id of the object, as returned by {@code ASType.getId()}.
+     * @return true if the id is a duplicate, false if it's new or null.
+     */
+    public boolean mightBeDuplicate(final URI id) {
+        return id != null && mightBeDuplicate(id.toString());
+    }
+
+    /**
+     * Checks whether the given id was already seen, without marking it.
+     *
+     * @param id the id of the object.
+     * @return true if the id is a duplicate.
+     */
+    public synchronized boolean mightBeDuplicate(final String id) {
+        rotateIfNeeded(clock.millis());
+        return contains(id, BloomFilter.hash(id));
+    }
+
+    /**
+     * Marks the given id as seen, once the activity has been handled.
+     *
+     * @param id the id of the object, as returned by {@code ASType.getId()}. Ignored if null.
+     */
+    public void markSeen(final URI id) {
+        if (id != null) {
+            markSeen(id.toString());
+        }
+    }
+
+    /**
+     * Marks the given id as seen, once the activity has been handled.
+     *
+     * @param id the id of the object.
+     */
+    public synchronized void markSeen(final String id) {
+        rotateIfNeeded(clock.millis());
+        mark(id, BloomFilter.hash(id));
+    }
+
+    private boolean contains(final String id, final long hash) {
+        if (!current.mightContain(hash) && !previous.mightContain(hash)) {
+            return false;
+        }
+        return confirmed.get(id) != null || trustFilterOnMiss;
+    }
+
+    private void mark(final String id, final long hash) {
+        if (!current.mightContain(hash)) {
+            current.put(hash);
+        }
+        confirmed.put(id, Boolean.TRUE);
+    }
+
+    /**
+     * Writes the state of the filter, so it can be restored after a restart with
+     * {@link #readSnapshot(InputStream)}. The stream is not closed.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if the snapshot can't be written.
+     */
+    public synchronized void writeSnapshot(final OutputStream out) throws IOException {
+        final var data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(SNAPSHOT_MAGIC);
+        data.writeInt(SNAPSHOT_VERSION);
+        data.writeInt(current.getBitCount());
+        data.writeInt(current.getHashCount());
+        current.writeTo(data);
+        previous.writeTo(data);
+        final var ids = new ArrayList<byte[]>(confirmed.size());
+        for (String id : confirmed.keySet()) {
+            final var bytes = id.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length <= MAX_SNAPSHOT_ID_BYTES) {
+                ids.add(bytes);
+            }
+        }
+        data.writeInt(ids.size());
+        for (byte[] bytes : ids) {
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+        data.flush();
+    }
+
+    /**
+     * Replaces the state of the filter with a snapshot written by {@link #writeSnapshot(OutputStream)}.
+     * The snapshot must come from a filter with the same sizing, and hold no more confirmed ids than this one
+     * keeps. The stream is not closed.
+     *
+     * @param in the stream to read from.
+     * @throws IOException if the snapshot can't be read, is corrupted or doesn't match this filter.
+     */
+    public synchronized void readSnapshot(final InputStream in) throws IOException {
+        final var data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != SNAPSHOT_MAGIC || data.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a seen-id filter snapshot");
+        }
+        if (data.readInt() != current.getBitCount() || data.readInt() != current.getHashCount()) {
+            throw new IOException("Snapshot was written by a filter with a different sizing");
+        }
+        // read everything before touching the current state, so a truncated snapshot leaves it untouched
+        final var restoredCurrent = new BloomFilter(current.getBitCount(), current.getHashCount(), 0);
+        restoredCurrent.readFrom(data);
+        final var restoredPrevious = new BloomFilter(current.getBitCount(), current.getHashCount(), 0);
+        restoredPrevious.readFrom(data);
+        final int size = data.readInt();
+        if (size < 0 || size > confirmationCapacity) {
+            throw new IOException("Snapshot has an invalid number of confirmed ids: " + size);
+        }
+        final var ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            final int length = data.readInt();
+            if (length < 0 || length > MAX_SNAPSHOT_ID_BYTES) {
+                throw new IOException("Snapshot has an invalid id length: " + length);
+            }
+            final var bytes = new byte[length];
+            data.readFully(bytes);
+            ids[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        current = restoredCurrent;
+        previous = restoredPrevious;
+        confirmed.clear();
+        for (String id : ids) {
+            confirmed.put(id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Writes a snapshot to the given file, replacing it atomically.
+     *
+     * @param file the snapshot file.
+     * @throws IOException if the snapshot can't be written.
+     */
+    public void saveSnapshot(final Path file) throws IOException {
+        final var dir = file.toAbsolutePath().getParent();
+        final var tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (var out = Files.newOutputStream(tmp)) {
+                writeSnapshot(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Restores a snapshot saved with {@link #saveSnapshot(Path)}.
+     *
+     * @param file the snapshot file.
+     * @throws IOException if the snapshot can't be read or doesn't match this filter.
+     */
+    public void restoreSnapshot(final Path file) throws IOException {
+        try (var in = Files.newInputStream(file)) {
+            readSnapshot(in);
+        }
+    }
+
+    private void rotateIfNeeded(final long now) {
+        final long age = now - current.getStartMillis();
+        if (age >= 2 * windowMillis) {
+            current.clear(now);
+            previous.clear(now);
+        } else if (age >= windowMillis || current.getInsertions() >= expectedInsertions) {
+            final var oldest = previous;
+            previous = current;
+            current = oldest;
+            current.clear(now);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[SeenIdFilter: {" +
+                "bits=" + current.getBitCount() + ", " +
+                "hashes=" + current.getHashCount() + ", " +
+                "current=" + current.getInsertions() + ", " +
+                "previous=" + previous.getInsertions() + ", " +
+                "confirmed=" + confirmed.size() +
+                "}]";
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.jfr;
+
+import java.net.URI;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base class of the Flight Recorder events emitted while decoding and encoding Activity Streams documents.
+ * <p>
+ * All events are disabled by default. Callers only fill in the fields when {@link #shouldCommit()} returns
+ * true, so a disabled event costs no more than the JIT-eliminated allocation of the event itself. Enable
+ * them in a recording with, for example, {@code -XX:StartFlightRecording:settings=profile} plus
+ * {@code dev.jfed.activitystreams.*#enabled=true}.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+@Category({"jFed", "Activity Streams"})
+@Enabled(false)
+@StackTrace(false)
+public abstract class ActivityStreamsEvent extends Event {
+
+    /**
+     * Result of the traced operation.
+     */
+    public enum Outcome {
+        /** The operation completed. */
+        SUCCESS,
+        /** The input had no JSON content. */
+        NO_CONTENT,
+        /** The input was not valid JSON or JSON-LD. */
+        INVALID,
+        /** The operation threw an exception. */
+        FAILED
+    }
+
+    @Label("Type")
+    String type;
+
+    @Label("Id Host")
+    String idHost;
+
+    @Label("Outcome")
+    String outcome;
+
+    public void setType(final String type) {
+        this.type = type;
+    }
+
+    public void setId(final URI id) {
+        this.idHost = id == null ? null : id.getHost();
+    }
+
+    /**
+     * Sets the host of the given id, ignoring values that are not valid URIs.
+     *
+     * @param id the id of the object.
+     */
+    public void setId(final String id) {
+        if (id == null) {
+            this.idHost = null;
+            return;
+        }
+        try {
+            this.idHost = URI.create(id).getHost();
+        } catch (IllegalArgumentException e) {
+            this.idHost = null;
+        }
+    }
+
+    public void setOutcome(final Outcome outcome) {
+        this.outcome = outcome.name();
+    }
+}
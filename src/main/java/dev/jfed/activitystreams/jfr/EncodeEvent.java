@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Serialization of an object to JSON.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+@Name("dev.jfed.activitystreams.Encode")
+@Label("Activity Streams Encode")
+@Description("Serialization of an object to JSON")
+public final class EncodeEvent extends ActivityStreamsEvent {
+
+    @Label("Payload Size")
+    @Description("Size of the output, in characters or bytes")
+    long payloadSize;
+
+    public void setPayloadSize(final long payloadSize) {
+        this.payloadSize = payloadSize;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Mapping of the properties of a compacted document into an object.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+@Name("dev.jfed.activitystreams.Mapping")
+@Label("Activity Streams Property Mapping")
+@Description("Mapping of the properties of a compacted document into an object")
+public final class MappingEvent extends ActivityStreamsEvent {
+
+    @Label("Property Count")
+    @Description("Number of properties in the compacted document")
+    int propertyCount;
+
+    public void setPropertyCount(final int propertyCount) {
+        this.propertyCount = propertyCount;
+    }
+}
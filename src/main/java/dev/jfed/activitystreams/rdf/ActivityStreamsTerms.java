@@ -0,0 +1,116 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.rdf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.apicatalog.jsonld.lang.Keywords;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+/**
+ * The term definitions of the bundled AS2 context, compiled once into absolute IRIs so writers map properties
+ * and types without any JSON-LD processing.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+final class ActivityStreamsTerms {
+    private static final String AS2_CONTEXT_RESOURCE = "/activitystreams.jsonld";
+
+    static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+
+    /**
+     * A compiled term.
+     *
+     * @param iri the absolute IRI of the term.
+     * @param datatype the absolute IRI of the datatype its values are coerced to, null if they aren't.
+     * @param iriValued true if its string values are IRIs.
+     */
+    record Term(String iri, String datatype, boolean iriValued) {
+    }
+
+    private static final Map<String, Term> TERMS = compile();
+
+    private ActivityStreamsTerms() {
+    }
+
+    /**
+     * Returns the definition of a term, or null if the context doesn't define it.
+     */
+    static Term get(final String term) {
+        return TERMS.get(term);
+    }
+
+    private static Map<String, Term> compile() {
+        final JsonObject context;
+        try (InputStream is = ActivityStreamsTerms.class.getResourceAsStream(AS2_CONTEXT_RESOURCE)) {
+            if (is == null) {
+                throw new IllegalStateException("Missing bundled context: " + AS2_CONTEXT_RESOURCE);
+            }
+            try (var reader = Json.createReader(is)) {
+                context = reader.readObject().getJsonObject(Keywords.CONTEXT);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to load bundled context: " + AS2_CONTEXT_RESOURCE, e);
+        }
+
+        final Map<String, Term> terms = new HashMap<>();
+        for (Map.Entry<String, JsonValue> entry : context.entrySet()) {
+            final String id;
+            String type = null;
+            if (entry.getValue() instanceof JsonString value) {
+                id = value.getString();
+            } else if (entry.getValue() instanceof JsonObject definition
+                    && definition.get(Keywords.ID) instanceof JsonString value) {
+                id = value.getString();
+                if (definition.get(Keywords.TYPE) instanceof JsonString typeValue) {
+                    type = typeValue.getString();
+                }
+            } else {
+                continue;
+            }
+            if (Keywords.matchForm(entry.getKey()) || Keywords.matchForm(id)) {
+                continue;
+            }
+            final var iri = expand(context, id);
+            if (Keywords.ID.equals(type)) {
+                terms.put(entry.getKey(), new Term(iri, null, true));
+            } else {
+                terms.put(entry.getKey(), new Term(iri, type != null ? expand(context, type) : null, false));
+            }
+        }
+        return Map.copyOf(terms);
+    }
+
+    /**
+     * Expands a compact IRI such as {@code as:name} using the prefixes of the context.
+     */
+    private static String expand(final JsonObject context, final String value) {
+        final int colon = value.indexOf(':');
+        if (colon > 0 && !value.startsWith("//", colon + 1)
+                && context.get(value.substring(0, colon)) instanceof JsonString prefix) {
+            return prefix.getString() + value.substring(colon + 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.rdf;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+import com.apicatalog.jsonld.lang.Keywords;
+import dev.jfed.activitystreams.ASProperties;
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.NaturalValue;
+import dev.jfed.activitystreams.codec.CodecSupport;
+import dev.jfed.activitystreams.codec.PropertyVisitor;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+
+/**
+ * Writes objects in expanded JSON-LD form, as a single array of node objects streamed to an output stream.
+ * <p>
+ * Nodes are written straight from the model using the AS2 term IRIs, and are the same ones JSON-LD expansion
+ * of {@link ASType#toJson()} would produce, so bulk exports don't need any JSON-LD processing per object.
+ * Not thread-safe.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class ExpandedJsonLdWriter implements Closeable, Flushable {
+    private static final JsonGeneratorFactory GENERATOR_FACTORY = Json.createGeneratorFactory(Map.of());
+
+    private final JsonGenerator generator;
+    private final NodeVisitor visitor = new NodeVisitor();
+
+    /**
+     * Creates a writer and starts the array of nodes. Closing the writer closes the stream.
+     *
+     * @param out the stream to write UTF-8 JSON to.
+     */
+    public ExpandedJsonLdWriter(final OutputStream out) {
+        generator = GENERATOR_FACTORY.createGenerator(out, StandardCharsets.UTF_8);
+        generator.writeStartArray();
+    }
+
+    /**
+     * Writes an object, with its nested objects embedded, as the next node of the array.
+     *
+     * @param value the object to write.
+     */
+    public void write(final ASType value) {
+        writeNode(value);
+    }
+
+    private void writeNode(final ASType value) {
+        generator.writeStartObject();
+        if (value.getId() != null) {
+            generator.write(Keywords.ID, value.getId().toString());
+        }
+        final var type = ActivityStreamsTerms.get(value.getType());
+        if (type != null) {
+            generator.writeStartArray(Keywords.TYPE).write(type.iri()).writeEnd();
+        }
+        value.visitProperties(visitor);
+        generator.writeEnd();
+    }
+
+    @Override
+    public void flush() {
+        generator.flush();
+    }
+
+    /**
+     * Ends the array of nodes and closes the stream.
+     */
+    @Override
+    public void close() {
+        generator.writeEnd();
+        generator.close();
+    }
+
+    private final class NodeVisitor implements PropertyVisitor {
+        @Override
+        public void visitUri(final String name, final URI value) {
+            if (!ASProperties.ID.equals(name)) {
+                visitString(name, value.toString());
+            }
+        }
+
+        @Override
+        public void visitString(final String name, final String value) {
+            final var term = ActivityStreamsTerms.get(name);
+            if (term == null) {
+                return;
+            }
+            generator.writeStartArray(term.iri()).writeStartObject();
+            if (term.iriValued()) {
+                generator.write(Keywords.ID, value);
+            } else {
+                generator.write(Keywords.VALUE, value);
+                if (term.datatype() != null) {
+                    generator.write(Keywords.TYPE, term.datatype());
+                }
+            }
+            generator.writeEnd().writeEnd();
+        }
+
+        @Override
+        public void visitInt(final String name, final int value) {
+            final var term = ActivityStreamsTerms.get(name);
+            if (term == null) {
+                return;
+            }
+            generator.writeStartArray(term.iri()).writeStartObject().write(Keywords.VALUE, value);
+            if (term.datatype() != null) {
+                generator.write(Keywords.TYPE, term.datatype());
+            }
+            generator.writeEnd().writeEnd();
+        }
+
+        @Override
+        public void visitNaturalValue(final String name, final NaturalValue value) {
+            final var term = ActivityStreamsTerms.get(name);
+            if (term == null) {
+                return;
+            }
+            generator.writeStartArray(term.iri());
+            if (CodecSupport.isLanguageMap(value)) {
+                for (Map.Entry<Locale, String> entry : value.getAllValues()) {
+                    generator.writeStartObject().write(Keywords.VALUE, entry.getValue());
+                    final var language = CodecSupport.expandedLanguage(entry.getKey());
+                    if (language != null) {
+                        generator.write(Keywords.LANGUAGE, language);
+                    }
+                    generator.writeEnd();
+                }
+            } else {
+                generator.writeStartObject().write(Keywords.VALUE, value.getValue()).writeEnd();
+            }
+            generator.writeEnd();
+        }
+
+        @Override
+        public void visitObject(final String name, final ASType value) {
+            final var term = ActivityStreamsTerms.get(name);
+            if (term == null) {
+                return;
+            }
+            generator.writeStartArray(term.iri());
+            writeNode(value);
+            generator.writeEnd();
+        }
+    }
+}
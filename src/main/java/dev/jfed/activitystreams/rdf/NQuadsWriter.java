@@ -0,0 +1,260 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.rdf;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+import dev.jfed.activitystreams.ASProperties;
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.NaturalValue;
+import dev.jfed.activitystreams.codec.CodecSupport;
+import dev.jfed.activitystreams.codec.PropertyVisitor;
+
+/**
+ * Writes objects as N-Quads statements streamed to an output stream, ready to be bulk loaded into an RDF store.
+ * <p>
+ * Statements are written straight from the model using the AS2 term IRIs, and are the same ones converting the
+ * JSON-LD of {@link ASType#toJson()} to RDF would produce, without any JSON-LD processing per object. Objects
+ * without an id become blank nodes, labeled uniquely for the whole output of the writer. Not thread-safe.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class NQuadsWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+    private final String graph;
+    private long blankNodeCount;
+
+    /**
+     * Creates a writer of statements in the default graph. Closing the writer closes the stream.
+     *
+     * @param out the stream to write UTF-8 N-Quads to.
+     */
+    public NQuadsWriter(final OutputStream out) {
+        this(out, null);
+    }
+
+    /**
+     * Creates a writer of statements in the given named graph, such as the instance the objects came from.
+     *
+     * @param out the stream to write UTF-8 N-Quads to.
+     * @param graph the graph name, or null for the default graph.
+     */
+    public NQuadsWriter(final OutputStream out, final URI graph) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.graph = graph != null ? graph.toString() : null;
+    }
+
+    /**
+     * Writes the statements of an object and of its nested objects.
+     *
+     * @param value the object to write.
+     * @throws IOException if the stream can't be written.
+     */
+    public void write(final ASType value) throws IOException {
+        try {
+            writeNode(value);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the statements of a node and returns its subject term.
+     */
+    private String writeNode(final ASType value) throws IOException {
+        final var subject = value.getId() != null ? "<" + value.getId() + ">" : "_:b" + blankNodeCount++;
+        final var type = ActivityStreamsTerms.get(value.getType());
+        if (type != null) {
+            startStatement(subject, ActivityStreamsTerms.RDF_TYPE);
+            writeIri(type.iri());
+            endStatement();
+        }
+        value.visitProperties(new NodeVisitor(subject));
+        return subject;
+    }
+
+    private void startStatement(final String subject, final String predicate) throws IOException {
+        writer.write(subject);
+        writer.write(' ');
+        writeIri(predicate);
+        writer.write(' ');
+    }
+
+    private void endStatement() throws IOException {
+        if (graph != null) {
+            writer.write(' ');
+            writeIri(graph);
+        }
+        writer.write(" .\n");
+    }
+
+    private void writeIri(final String iri) throws IOException {
+        writer.write('<');
+        writer.write(iri);
+        writer.write('>');
+    }
+
+    /**
+     * Writes a literal in canonical N-Quads form: only quotes, backslashes and line breaks are escaped.
+     */
+    private void writeLiteral(final String value) throws IOException {
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final var escape = switch (value.charAt(i)) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                default -> null;
+            };
+            if (escape != null) {
+                writer.write(value, start, i - start);
+                writer.write(escape);
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private final class NodeVisitor implements PropertyVisitor {
+        private final String subject;
+
+        private NodeVisitor(final String subject) {
+            this.subject = subject;
+        }
+
+        @Override
+        public void visitUri(final String name, final URI value) {
+            if (!ASProperties.ID.equals(name)) {
+                visitString(name, value.toString());
+            }
+        }
+
+        @Override
+        public void visitString(final String name, final String value) {
+            final var term = ActivityStreamsTerms.get(name);
+            if (term == null) {
+                return;
+            }
+            try {
+                startStatement(subject, term.iri());
+                if (term.iriValued()) {
+                    writeIri(value);
+                } else {
+                    writeLiteral(value);
+                    writeDatatype(term);
+                }
+                endStatement();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visitInt(final String name, final int value) {
+            final var term = ActivityStreamsTerms.get(name);
+            if (term == null) {
+                return;
+            }
+            try {
+                startStatement(subject, term.iri());
+                writeLiteral(Integer.toString(value));
+                writeDatatype(term);
+                endStatement();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visitNaturalValue(final String name, final NaturalValue value) {
+            final var term = ActivityStreamsTerms.get(name);
+            if (term == null) {
+                return;
+            }
+            try {
+                if (CodecSupport.isLanguageMap(value)) {
+                    for (Map.Entry<Locale, String> entry : value.getAllValues()) {
+                        startStatement(subject, term.iri());
+                        writeLiteral(entry.getValue());
+                        final var language = CodecSupport.expandedLanguage(entry.getKey());
+                        if (language != null) {
+                            writer.write('@');
+                            writer.write(language);
+                        }
+                        endStatement();
+                    }
+                } else {
+                    startStatement(subject, term.iri());
+                    writeLiteral(value.getValue());
+                    endStatement();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void visitObject(final String name, final ASType value) {
+            final var term = ActivityStreamsTerms.get(name);
+            if (term == null) {
+                return;
+            }
+            try {
+                final var object = writeNode(value);
+                startStatement(subject, term.iri());
+                writer.write(object);
+                endStatement();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeDatatype(final ActivityStreamsTerms.Term term) throws IOException {
+            if (term.datatype() != null) {
+                writer.write("^^");
+                writeIri(term.datatype());
+            }
+        }
+    }
+}
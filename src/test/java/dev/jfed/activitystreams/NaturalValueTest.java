@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+class NaturalValueTest {
+
+    private static NaturalValue multilingual() {
+        return NaturalValue.builder()
+                .withValue("en", "Colour")
+                .withValue("en-US", "Color")
+                .withValue("zh-Hant", "顏色")
+                .withValue("es", "Color (es)")
+                .withValue("Title")
+                .build();
+    }
+
+    @Test
+    void testNegotiateLookup() {
+        var value = multilingual();
+
+        assertEquals("Color", value.negotiate("en-US,en;q=0.8"));
+        assertEquals("Colour", value.negotiate("en-GB,es;q=0.5"));
+        assertEquals("Color", value.negotiate("EN-us"));
+        assertEquals("顏色", value.negotiate("zh-Hant-CN-x-private1"));
+        assertEquals("Color (es)", value.negotiate("fr, es-MX;q=0.9, en;q=0.1"));
+        assertEquals("Colour", value.negotiate(Locale.LanguageRange.parse("de, en-AU")));
+    }
+
+    @Test
+    void testNegotiateFallback() {
+        var value = multilingual();
+
+        assertEquals("Title", value.negotiate("de-DE"));
+        assertEquals("Title", value.negotiate("*"));
+        assertEquals("Title", value.negotiate((String) null));
+        assertEquals("Title", value.negotiate("en;q=2;;"));
+        assertEquals("Title", value.negotiate("en-US;q=0, en;q=0, es;q=0"));
+        assertEquals("Color (es)", value.negotiate("en-US;q=0, es"));
+
+        var withoutDefault = NaturalValue.builder().withValue("fr", "Couleur").withValue("de", "Farbe").build();
+        assertEquals("Farbe", withoutDefault.negotiate("ja"));
+        assertNull(NaturalValue.builder().build().negotiate("ja"));
+    }
+
+    @Test
+    void testNegotiateFallbackSkipsExcluded() {
+        var value = NaturalValue.builder().withValue("en", "Colour").withValue("fr", "Couleur").build();
+
+        assertEquals("Couleur", value.negotiate("de, en;q=0"));
+        assertEquals("Couleur", NaturalValue.builder().withValue("en-GB", "Colour").withValue("fr", "Couleur")
+                .build().negotiate("de, en;q=0"));
+        assertEquals("Colour", value.negotiate("de, fr;q=0"));
+        assertNull(value.negotiate("de, *;q=0"));
+    }
+
+    @Test
+    void testNegotiateAfterUpdate() {
+        var value = multilingual();
+        assertEquals("Title", value.negotiate("fr"));
+
+        value.setValue("fr", "Couleur");
+        assertEquals("Couleur", value.negotiate("fr-CA"));
+    }
+
+    @Test
+    void testLocalesDifferingInExtensionsAreKept() {
+        var value = NaturalValue.builder()
+                .withValue("en-u-ca-gregory", "Gregorian")
+                .withValue("en-u-ca-buddhist", "Buddhist")
+                .withValue("en", "Plain")
+                .build();
+
+        assertEquals(3, value.getAllValues().size());
+        assertEquals("Gregorian", value.getValue("en-u-ca-gregory"));
+        assertEquals("Buddhist", value.getValue("en-u-ca-buddhist"));
+        assertEquals("Plain", value.getValue("en"));
+    }
+
+    @Test
+    void testParsedHeadersAreCached() {
+        assertSame(LanguagePriorityList.parse("pt-BR, pt;q=0.9"), LanguagePriorityList.parse("pt-BR, pt;q=0.9"));
+        assertEquals("pt-br, pt", LanguagePriorityList.parse("pt-BR, pt;q=0.9").toString());
+    }
+
+    @Test
+    void testHeaderCacheEvictsLeastRecentlyUsed() {
+        final var common = LanguagePriorityList.parse("de-CH, de;q=0.9");
+        final var rare = LanguagePriorityList.parse("fy-NL");
+        for (int i = 0; i < 1000; i++) {
+            LanguagePriorityList.parse("x-junk" + i);
+            if (i % 100 == 0) {
+                assertSame(common, LanguagePriorityList.parse("de-CH, de;q=0.9"));
+            }
+        }
+
+        assertSame(common, LanguagePriorityList.parse("de-CH, de;q=0.9"));
+        assertNotSame(rare, LanguagePriorityList.parse("fy-NL"));
+    }
+}
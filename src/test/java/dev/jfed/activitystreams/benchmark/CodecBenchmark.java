@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.benchmark;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import dev.jfed.activitystreams.NaturalValue;
+import dev.jfed.activitystreams.codec.DigestAlgorithm;
+import dev.jfed.activitystreams.codec.DigestedPayload;
+import dev.jfed.activitystreams.core.ASObject;
+import dev.jfed.activitystreams.core.Link;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Steady-state throughput of decoding and encoding. Run with the GC profiler ({@code -prof gc}, the default
+ * for the {@code benchmark} profile) to check the allocation rate per operation.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+    private static final String OBJECT_JSON = """
+            {
+              "@context": "https://www.w3.org/ns/activitystreams",
+              "type": "Object",
+              "id": "http://www.test.example/object/1",
+              "nameMap": {
+                "en": "This is the title",
+                "fr": "C'est le titre",
+                "es": "Este es el titulo"
+              }
+            }
+            """;
+    private static final String LINK_JSON = """
+            {
+              "@context": "https://www.w3.org/ns/activitystreams",
+              "type": "Link",
+              "href": "http://example.org/abc",
+              "hreflang": "en",
+              "mediaType": "text/html",
+              "name": "An example link",
+              "height": 100,
+              "width": 100
+            }
+            """;
+
+    private ASObject object;
+    private Link link;
+    private ASObject target;
+
+    @Setup
+    public void setup() {
+        object = ASObject.builder()
+                .withId(URI.create("http://www.test.example/object/1"))
+                .withName(NaturalValue.builder()
+                        .withValue("en", "This is the title")
+                        .withValue("es", "Este es el titulo")
+                        .build())
+                .build();
+        link = new Link.LinkBuilder(URI.create("http://example.org/abc"))
+                .rel("canonical")
+                .mediaType("text/html")
+                .name(NaturalValue.builder().withValue("An example link").build())
+                .hreflang("en")
+                .height(100)
+                .width(100)
+                .build();
+        target = ASObject.builder().build();
+    }
+
+    @Benchmark
+    public Optional<ASObject> decodeObject() {
+        return ASObject.fromJson(OBJECT_JSON);
+    }
+
+    @Benchmark
+    public Optional<ASObject> decodeObjectIntoTarget() {
+        return ASObject.fromJson(OBJECT_JSON, target);
+    }
+
+    @Benchmark
+    public Optional<Link> decodeLink() {
+        return Link.fromJson(LINK_JSON);
+    }
+
+    @Benchmark
+    public String encodeObject() {
+        return object.toJson();
+    }
+
+    @Benchmark
+    public DigestedPayload encodeObjectWithDigest() {
+        return object.toJson(DigestAlgorithm.SHA_256);
+    }
+
+    @Benchmark
+    public String encodeLink() {
+        return link.toJson();
+    }
+}
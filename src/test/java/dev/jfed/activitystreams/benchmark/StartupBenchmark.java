@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.benchmark;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import dev.jfed.activitystreams.core.ASObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to the first decode and encode in a fresh JVM, which is what short-lived jobs and cold workers pay.
+ * Every measurement runs in its own fork with no warmup, so nothing the library initializes lazily is
+ * loaded before the measured call.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+    private static final String OBJECT_JSON = """
+            {
+              "@context": "https://www.w3.org/ns/activitystreams",
+              "type": "Object",
+              "id": "http://www.test.example/object/1",
+              "name": "A Simple, non-specific object"
+            }
+            """;
+
+    @Benchmark
+    public Optional<ASObject> firstFromJson() {
+        return ASObject.fromJson(OBJECT_JSON);
+    }
+
+    @Benchmark
+    public String firstToJson() {
+        return ASObject.builder()
+                .withId(URI.create("http://www.test.example/object/1"))
+                .build()
+                .toJson();
+    }
+}
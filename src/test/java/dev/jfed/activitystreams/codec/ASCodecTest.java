@@ -0,0 +1,237 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import dev.jfed.activitystreams.JsonTestUtil;
+import dev.jfed.activitystreams.NaturalValue;
+import dev.jfed.activitystreams.core.ASObject;
+import dev.jfed.activitystreams.soak.CorpusGenerator;
+import jakarta.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+class ASCodecTest {
+
+    @Test
+    void testLocalIsConfinedToThread() throws Exception {
+        final var codec = ASCodec.local();
+        assertSame(codec, ASCodec.local());
+        assertNotSame(codec, CompletableFuture.supplyAsync(ASCodec::local).get());
+    }
+
+    @Test
+    void testDecodeUsesBundledContext() throws Exception {
+        final var codec = new ASCodec();
+        final var json = JsonTestUtil.getJsonFromFile("test/vocabulary-ex1-jsonld.json");
+
+        for (int i = 0; i < 3; i++) {
+            final var result = codec.decode(json);
+            assertTrue(result.isPresent());
+            assertEquals("http://www.test.example/object/1", result.get().getString("id"));
+        }
+    }
+
+    @Test
+    void testDecodeInvalidJson() {
+        assertTrue(new ASCodec().decode("{ \"type\": ").isEmpty());
+    }
+
+    @Test
+    void testEncodeReusesBuffer() throws Exception {
+        final var first = ASObject.builder()
+                .withName(NaturalValue.builder().withValue("a much longer first name").build())
+                .build().toJson();
+        final var second = ASObject.builder().withName(NaturalValue.builder().withValue("second").build())
+                .build().toJson();
+
+        JSONAssert.assertEquals("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Object",
+                    "name": "a much longer first name"
+                }
+                """, first, true);
+        JSONAssert.assertEquals("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Object",
+                    "name": "second"
+                }
+                """, second, true);
+    }
+
+    @Test
+    void testDecodeIntoTarget() throws Exception {
+        final var target = ASObject.builder().withId(URI.create("https://test.example.com/old")).build();
+        final var json = JsonTestUtil.getJsonFromFile("test/core-ex8-jsonld.json");
+
+        final var result = ASObject.fromJson(json, target);
+        assertTrue(result.isPresent());
+        assertSame(target, result.get());
+        assertNull(target.getId());
+        assertEquals("C'est le titre", target.getName().getValue("fr"));
+    }
+
+    @Test
+    void testLoaderMatchesBothSchemes() {
+        assertTrue(ContextDocumentLoader.isActivityStreamsContext(URI.create("https://www.w3.org/ns/activitystreams")));
+        assertTrue(ContextDocumentLoader.isActivityStreamsContext(URI.create("http://www.w3.org/ns/activitystreams")));
+        assertFalse(ContextDocumentLoader.isActivityStreamsContext(URI.create("https://w3id.org/security/v1")));
+    }
+
+    @Test
+    void testEncodeWithDigest() throws Exception {
+        final var object = ASObject.builder()
+                .withId(URI.create("https://test.example.com/object/1"))
+                .withName(NaturalValue.builder().withValue("Objeto de Prueba ñ").build())
+                .build();
+
+        for (DigestAlgorithm algorithm : DigestAlgorithm.values()) {
+            final var result = object.toJson(algorithm);
+            final var expected = object.toJson().getBytes(StandardCharsets.UTF_8);
+            final var expectedDigest = MessageDigest.getInstance(algorithm.getJcaName()).digest(expected);
+
+            assertArrayEquals(expected, result.getPayload());
+            assertArrayEquals(expectedDigest, result.getDigest());
+            assertEquals(algorithm.getDigestName() + "=" + Base64.getEncoder().encodeToString(expectedDigest),
+                    result.toDigestHeader());
+            assertEquals(algorithm.getContentDigestName() + "=:"
+                    + Base64.getEncoder().encodeToString(expectedDigest) + ":", result.toContentDigestHeader());
+        }
+    }
+
+    @Test
+    void testDigestIsResetBetweenCalls() {
+        final var object = ASObject.builder().withName(NaturalValue.builder().withValue("same").build()).build();
+        final var other = ASObject.builder().withName(NaturalValue.builder().withValue("other").build()).build();
+
+        final var first = object.toJson(DigestAlgorithm.SHA_256);
+        other.toJson(DigestAlgorithm.SHA_256);
+        final var second = object.toJson(DigestAlgorithm.SHA_256);
+        assertArrayEquals(first.getDigest(), second.getDigest());
+        assertEquals(first.getPayloadAsString(), second.getPayloadAsString());
+    }
+
+    @Test
+    void testExtractId() {
+        final var codec = new ASCodec();
+
+        assertEquals("https://test.example.com/object/1", codec.extractId("""
+                {
+                    "@context": ["https://www.w3.org/ns/activitystreams", { "@language": "en" }],
+                    "actor": { "id": "https://test.example.com/actor" },
+                    "id": "https://test.example.com/object/1"
+                }
+                """).orElseThrow());
+        assertEquals("https://test.example.com/object/2",
+                codec.extractId("{ \"@id\": \"https://test.example.com/object/2\" }").orElseThrow());
+        assertTrue(codec.extractId("{ \"type\": \"Object\" }").isEmpty());
+        assertTrue(codec.extractId("[ { \"id\": \"https://test.example.com/object/3\" } ]").isEmpty());
+        assertTrue(codec.extractId("{ \"id\": ").isEmpty());
+    }
+
+    @Test
+    void testCachedContextMatchesFullProcessing() {
+        final var cached = new ASCodec();
+        final var uncached = new ASCodec(0);
+        for (final var payload : new CorpusGenerator(3, 0.1).generate(300)) {
+            assertEquals(decodeOrError(uncached, payload.json()), decodeOrError(cached, payload.json()),
+                    payload.json());
+        }
+        final var stats = cached.getContextCacheStats();
+        assertTrue(stats.getHitRate() > 0.9, stats.toString());
+        assertEquals(0, uncached.getContextCacheStats().getHitCount() + uncached.getContextCacheStats().getMissCount());
+    }
+
+    @Test
+    void testContextCacheStats() {
+        final var codec = new ASCodec();
+        final var mastodon = """
+                {
+                    "@context": ["https://www.w3.org/ns/activitystreams", {"toot": "http://joinmastodon.org/ns#",
+                        "discoverable": "toot:discoverable"}],
+                    "type": "Object",
+                    "id": "https://mastodon.example/objects/%d",
+                    "discoverable": true
+                }
+                """;
+        final var reordered = """
+                {
+                    "@context": ["https://www.w3.org/ns/activitystreams", {"discoverable": "toot:discoverable",
+                        "toot": "http://joinmastodon.org/ns#"}],
+                    "type": "Object",
+                    "id": "https://mastodon.example/objects/reordered"
+                }
+                """;
+        for (int i = 0; i < 3; i++) {
+            final var result = codec.decode(String.format(mastodon, i));
+            assertEquals("https://mastodon.example/objects/" + i, result.orElseThrow().getString("id"));
+        }
+        assertTrue(codec.decode(reordered).isPresent());
+        assertTrue(codec.decode("{\"@context\": \"https://www.w3.org/ns/activitystreams\", \"type\": \"Link\"}")
+                .isPresent());
+
+        final var stats = codec.getContextCacheStats();
+        assertEquals(3, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getSize());
+        assertEquals(0.6, stats.getHitRate(), 1e-9);
+        assertTrue(ASCodec.getTotalContextCacheStats().getHitCount() >= 3);
+        assertTrue(ASCodec.getTotalContextCacheStats().getSize() >= 2);
+    }
+
+    @Test
+    void testContextCacheEvictsLeastRecentlyUsed() {
+        final var codec = new ASCodec(1);
+        final var inline = "{\"@context\": [\"https://www.w3.org/ns/activitystreams\", {\"x\": \"as:name\"}],"
+                + " \"type\": \"Object\", \"x\": \"inline\"}";
+        final var plain = "{\"@context\": \"https://www.w3.org/ns/activitystreams\", \"type\": \"Object\"}";
+
+        assertEquals("inline", codec.decode(inline).orElseThrow().getString("name"));
+        assertTrue(codec.decode(plain).isPresent());
+        assertEquals("inline", codec.decode(inline).orElseThrow().getString("name"));
+
+        final var stats = codec.getContextCacheStats();
+        assertEquals(0, stats.getHitCount());
+        assertEquals(2, stats.getEvictionCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    private static Object decodeOrError(final ASCodec codec, final String json) {
+        try {
+            final Optional<JsonObject> result = codec.decode(json);
+            return result;
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.NaturalValue;
+import dev.jfed.activitystreams.core.ASObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchCodecTest {
+    private static final int BATCH_SIZE = 50;
+
+    private ForkJoinPool pool;
+    private BatchCodec batchCodec;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        batchCodec = BatchCodec.builder().withPool(pool).withThreshold(4).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testDecodeAllKeepsOrderAndReportsFailures() {
+        final List<byte[]> payloads = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            payloads.add(objectJson(i).getBytes(StandardCharsets.UTF_8));
+        }
+        payloads.set(10, "{ \"type\": ".getBytes(StandardCharsets.UTF_8));
+        payloads.set(20, """
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Object",
+                    "name": 42
+                }
+                """.getBytes(StandardCharsets.UTF_8));
+
+        final var results = batchCodec.decodeAll(payloads, ASObject::fromJson);
+
+        assertEquals(BATCH_SIZE, results.size());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final var result = results.get(i);
+            assertEquals(i, result.getIndex());
+            if (i == 10 || i == 20) {
+                assertFalse(result.isSuccess());
+                assertNotNull(result.getError());
+            } else {
+                assertTrue(result.isSuccess(), () -> String.valueOf(result));
+                assertEquals("https://test.example.com/object/" + i, result.getValue().getId().toString());
+            }
+        }
+    }
+
+    @Test
+    void testEncodeAll() {
+        final var objects = new LinkedHashSet<ASType>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            objects.add(ASObject.builder()
+                    .withId(URI.create("https://test.example.com/object/" + i))
+                    .withName(NaturalValue.builder().withValue("Object " + i).build())
+                    .build());
+        }
+
+        final var results = batchCodec.encodeAll(objects);
+        final var digests = batchCodec.encodeAll(objects, DigestAlgorithm.SHA_256);
+
+        var i = 0;
+        for (ASType object : objects) {
+            assertEquals(object.toJson(), results.get(i).getValue());
+            assertArrayEquals(object.toJson(DigestAlgorithm.SHA_256).getDigest(), digests.get(i).getValue().getDigest());
+            i++;
+        }
+    }
+
+    @Test
+    void testEmptyBatch() {
+        assertTrue(batchCodec.decodeAll(List.of(), ASObject::fromJson).isEmpty());
+    }
+
+    private static String objectJson(int i) {
+        return """
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Object",
+                    "id": "https://test.example.com/object/%d",
+                    "name": "Object %d"
+                }
+                """.formatted(i, i);
+    }
+}
@@ -26,7 +26,10 @@ import java.net.URI;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -108,6 +111,42 @@ class ASObjectTest {
                 true);
     }
 
+    @Test
+    void testRegionalNameMapRoundTrip() throws Exception {
+        var object = ASObject.builder()
+                .withId(URI.create(TEST_ID))
+                .withName(NaturalValue.builder()
+                        .withValue("en", "Colour")
+                        .withValue("en-US", "Color")
+                        .withValue("Untagged")
+                        .build())
+                .build();
+        var result = object.toJson();
+        log.atDebug().setMessage("Test json: {}").addArgument(result).log();
+
+        JSONAssert.assertEquals("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Object",
+                    "id": "https://test.example.com/object/1",
+                    "nameMap": {
+                        "en": "Colour",
+                        "en-US": "Color",
+                        "@none": "Untagged"
+                    }
+                }
+                """,
+                result,
+                true);
+        JSONAssert.assertEquals(object.toJsonObject().toString(), result, true);
+
+        var decoded = ASObject.fromJson(result).orElseThrow();
+        assertEquals(object, decoded);
+        assertEquals("Color", decoded.getName().getValue("en-US"));
+        assertEquals("Colour", decoded.getName().getValue("en"));
+        assertEquals("Untagged", decoded.getName().getValue());
+    }
+
     @Test
     void testNameMap() throws Exception {
         var testObject = getAsObject("test/core-ex8-jsonld.json");
@@ -148,6 +187,110 @@ class ASObjectTest {
         assertEquals("A Simple, non-specific object", testObject.getName().getValue());
     }
 
+    @Test
+    void testApplyUpdate() {
+        var original = ASObject.builder()
+                .withId(URI.create(TEST_ID))
+                .withName(NaturalValue.builder().withValue("en", TEST_NAME).withValue("es", TEST_NAME_ES).build())
+                .withPreview(new Link.LinkBuilder(URI.create("https://test.example.com/preview.png")).build())
+                .build();
+
+        var renamed = original.applyUpdate("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Update",
+                    "actor": "https://test.example.com/users/1",
+                    "object": {
+                        "type": "Object",
+                        "id": "https://test.example.com/object/1",
+                        "name": "Renamed Object"
+                    }
+                }
+                """).orElseThrow();
+        assertNotSame(original, renamed);
+        assertEquals(TEST_ID, renamed.getId().toString());
+        assertEquals("Renamed Object", renamed.getName().getValue());
+        assertSame(original.getPreview(), renamed.getPreview());
+        assertEquals(TEST_NAME_ES, original.getName().getValue("es"));
+
+        var newPreview = renamed.applyUpdate("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Object",
+                    "preview": {"type": "Link", "href": "https://test.example.com/preview-2.png"}
+                }
+                """).orElseThrow();
+        assertSame(renamed.getName(), newPreview.getName());
+        assertEquals("https://test.example.com/preview-2.png", ((Link) newPreview.getPreview()).getHref().toString());
+
+        assertTrue(original.applyUpdate("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Object",
+                    "id": "https://test.example.com/object/2",
+                    "name": "Someone else"
+                }
+                """).isEmpty());
+    }
+
+    @Test
+    void testCanonicalFormAndContentHash() {
+        var object = ASObject.builder()
+                .withId(URI.create(TEST_ID))
+                .withName(NaturalValue.builder().withValue("es", TEST_NAME_ES).withValue("en", TEST_NAME).build())
+                .withPreview(new Link.LinkBuilder(URI.create("https://test.example.com/preview.png")).build())
+                .build();
+        var sameObject = ASObject.builder()
+                .withPreview(new Link.LinkBuilder(URI.create("https://test.example.com/preview.png")).build())
+                .withName(NaturalValue.builder().withValue("en", TEST_NAME).withValue("es", TEST_NAME_ES).build())
+                .withId(URI.create(TEST_ID))
+                .build();
+
+        assertEquals(object, sameObject);
+        assertEquals(object.hashCode(), sameObject.hashCode());
+        assertEquals(object.toJson(), sameObject.toJson());
+        assertEquals(object.contentHash(), sameObject.contentHash());
+        assertEquals(34, object.contentHash().toETag().length());
+
+        var decoded = ASObject.fromJson(object.toJson()).orElseThrow();
+        assertEquals(object, decoded);
+        assertEquals(object.contentHash(), decoded.contentHash());
+
+        var renamed = ASObject.builder()
+                .withId(URI.create(TEST_ID))
+                .withName(NaturalValue.builder().withValue("en", TEST_NAME).withValue("es", TEST_NAME).build())
+                .withPreview(new Link.LinkBuilder(URI.create("https://test.example.com/preview.png")).build())
+                .build();
+        assertNotEquals(object, renamed);
+        assertNotEquals(object.contentHash(), renamed.contentHash());
+
+        var otherPreview = ASObject.builder()
+                .withId(URI.create(TEST_ID))
+                .withName(NaturalValue.builder().withValue("en", TEST_NAME).withValue("es", TEST_NAME_ES).build())
+                .withPreview(ASObject.builder().withId(URI.create("https://test.example.com/preview.png")).build())
+                .build();
+        assertNotEquals(object.contentHash(), otherPreview.contentHash());
+
+        assertSame(object, object.applyUpdate("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Object",
+                    "id": "https://test.example.com/object/1",
+                    "nameMap": {"en": "Test Object", "es": "Objeto de Prueba"}
+                }
+                """).orElseThrow());
+    }
+
+    @Test
+    void testContentHashIsStable() {
+        var object = ASObject.builder()
+                .withId(URI.create(TEST_ID))
+                .withName(NaturalValue.builder().withValue(TEST_NAME).build())
+                .build();
+
+        assertEquals("8240ead3b1ba9265f23ccb72b1cd25cd", object.contentHash().toHexString());
+    }
+
     private ASObject getAsObject(String name) throws Exception {
         var jsonString = JsonTestUtil.getJsonFromFile(name);
         assertNotNull(jsonString);
@@ -18,12 +18,20 @@ package dev.jfed.activitystreams.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.net.URI;
 
 import dev.jfed.activitystreams.JsonTestUtil;
+import dev.jfed.activitystreams.ASType;
 import dev.jfed.activitystreams.NaturalValue;
+import jakarta.json.Json;
 import org.junit.jupiter.api.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.slf4j.Logger;
@@ -108,6 +116,226 @@ class LinkTest {
         assertEquals(100, testLink.getWidth());
     }
 
+    @Test
+    void testRoundTrip() throws Exception {
+        Link link = new Link.LinkBuilder(URI.create(TEST_HREF))
+            .id(URI.create("https://example.org/link/1"))
+            .rel(TEST_REL)
+            .name(NaturalValue.builder().withValue("en", TEST_NAME).build())
+            .height(TEST_HEIGHT)
+            .preview(new Link.LinkBuilder(URI.create("https://example.org/abc-small.png")).width(60).build())
+            .build();
+        String result = link.toJson();
+        log.atDebug().setMessage("Test json: {}").addArgument(result).log();
+
+        JSONAssert.assertEquals(link.toJsonObject().toString(), result, true);
+
+        Link decoded = Link.fromJson(result).orElseThrow();
+        assertEquals("https://example.org/link/1", decoded.getId().toString());
+        assertEquals(TEST_REL, decoded.getRel());
+        assertEquals(TEST_NAME, decoded.getName().getValue("en"));
+        assertEquals(TEST_HEIGHT, decoded.getHeight());
+        final var preview = assertInstanceOf(Link.class, decoded.getPreview());
+        assertEquals("https://example.org/abc-small.png", preview.getHref().toString());
+        assertEquals(60, preview.getWidth());
+    }
+
+    @Test
+    void testNestedPreviewDepth() {
+        final var json = """
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Link",
+                    "href": "https://example.org/video.mp4",
+                    "preview": {
+                        "type": "Video",
+                        "id": "https://example.org/trailer",
+                        "name": "Trailer",
+                        "preview": {
+                            "type": "Link",
+                            "href": "https://example.org/trailer.png",
+                            "preview": "https://example.org/trailer-small.png"
+                        }
+                    }
+                }
+                """;
+
+        final var full = Link.fromJson(json).orElseThrow();
+        final var trailer = assertInstanceOf(ASObject.class, full.getPreview());
+        assertEquals("https://example.org/trailer", trailer.getId().toString());
+        assertEquals("Trailer", trailer.getName().getValue());
+        final var image = assertInstanceOf(Link.class, trailer.getPreview());
+        assertEquals("https://example.org/trailer.png", image.getHref().toString());
+        final var small = assertInstanceOf(Link.class, image.getPreview());
+        assertEquals("https://example.org/trailer-small.png", small.getHref().toString());
+
+        final var shallow = Link.fromJson(json, 2).orElseThrow();
+        final var shallowImage = (Link) ((ASObject) shallow.getPreview()).getPreview();
+        assertNull(shallowImage.getPreview());
+
+        assertNull(Link.fromJson(json, 0).orElseThrow().getPreview());
+    }
+
+    @Test
+    void testNestedObjectsWithSameIdAreShared() {
+        final var attachment = Json.createObjectBuilder()
+                .add("type", "Image")
+                .add("id", "https://example.org/attachment/1")
+                .add("name", "Attachment")
+                .build();
+        final var context = EmbeddedTypes.newContext(4);
+
+        final var first = context.decode(attachment, ASType.class);
+        assertSame(first, context.decode(attachment, ASType.class));
+
+        // a different copy of the same object is never replaced by the first one
+        final var fuller = context.decode(Json.createObjectBuilder(attachment).add("name", "Again").build(),
+                ASType.class);
+        assertNotSame(first, fuller);
+        assertEquals("Again", fuller.getName().getValue());
+
+        assertNotSame(first, EmbeddedTypes.newContext(4).decode(attachment, ASType.class));
+        assertNull(context.decode(attachment, Link.class));
+    }
+
+    @Test
+    void testNestedObjectCutOffByDepthIsNotShared() {
+        final var image = Json.createObjectBuilder()
+                .add("type", "Image")
+                .add("id", "https://example.org/image/1")
+                .add("preview", Json.createObjectBuilder()
+                        .add("type", "Link")
+                        .add("href", "https://example.org/image-small.png"))
+                .build();
+        final var wrapper = Json.createObjectBuilder()
+                .add("type", "Video")
+                .add("id", "https://example.org/video/1")
+                .add("preview", image)
+                .build();
+        final var context = EmbeddedTypes.newContext(2);
+
+        // decoded one level down, so its own preview is past the limit
+        final var video = context.decode(wrapper, ASObject.class);
+        final var truncated = (ASObject) video.getPreview();
+        assertNull(truncated.getPreview());
+
+        final var full = context.decode(image, ASObject.class);
+        assertNotSame(truncated, full);
+        assertInstanceOf(Link.class, full.getPreview());
+        assertSame(full, context.decode(image, ASObject.class));
+    }
+
+    @Test
+    void testNestedCopyOfRootIsNotShared() {
+        final var object = ASObject.fromJson("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Image",
+                    "id": "https://example.org/image/1",
+                    "name": "Image",
+                    "preview": {"type": "Image", "id": "https://example.org/image/1"}
+                }
+                """).orElseThrow();
+
+        final var preview = assertInstanceOf(ASObject.class, object.getPreview());
+        assertNotSame(object, preview);
+        assertEquals(object.getId(), preview.getId());
+        assertNull(preview.getName());
+        assertNotNull(object.toJson());
+    }
+
+    @Test
+    void testMalformedNestedValueIsDropped() {
+        final var object = ASObject.fromJson("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Image",
+                    "id": "https://example.org/image/1",
+                    "name": "Image",
+                    "preview": {"type": "Link", "href": "http://a b"}
+                }
+                """).orElseThrow();
+        assertEquals("https://example.org/image/1", object.getId().toString());
+        assertEquals("Image", object.getName().getValue());
+        assertNull(object.getPreview());
+
+        final var context = EmbeddedTypes.newContext(4);
+        assertNull(context.decode(Json.createObjectBuilder()
+                .add("type", "Link")
+                .add("href", "https://example.org/abc.png")
+                .add("width", "wide")
+                .build(), Link.class));
+        assertEquals(0, context.getDepth());
+    }
+
+    @Test
+    void testApplyUpdate() {
+        Link original = new Link.LinkBuilder(URI.create(TEST_HREF))
+            .mediaType(TEST_MEDIA_TYPE)
+            .name(NaturalValue.builder().withValue("en", TEST_NAME).build())
+            .height(TEST_HEIGHT)
+            .width(TEST_WIDTH)
+            .preview(new Link.LinkBuilder(URI.create("https://example.org/abc-small.png")).build())
+            .build();
+
+        Link updated = original.applyUpdate("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Link",
+                    "href": "https://example.org/abc-2x.png",
+                    "height": 1800,
+                    "width": 1200
+                }
+                """).orElseThrow();
+
+        assertEquals("https://example.org/abc-2x.png", updated.getHref().toString());
+        assertEquals(1800, updated.getHeight());
+        assertEquals(1200, updated.getWidth());
+        assertEquals(TEST_MEDIA_TYPE, updated.getMediaType());
+        assertSame(original.getName(), updated.getName());
+        assertSame(original.getPreview(), updated.getPreview());
+        assertEquals(TEST_HREF, original.getHref().toString());
+        assertEquals(TEST_HEIGHT, original.getHeight());
+    }
+
+    @Test
+    void testApplyUpdateWithMalformedHref() {
+        Link original = new Link.LinkBuilder(URI.create(TEST_HREF)).width(TEST_WIDTH).build();
+
+        assertTrue(original.applyUpdate("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Link",
+                    "href": "http://a b",
+                    "width": 1
+                }
+                """).isEmpty());
+        assertEquals(TEST_HREF, original.getHref().toString());
+        assertEquals(TEST_WIDTH, original.getWidth());
+    }
+
+    @Test
+    void testEqualsAndContentHash() throws Exception {
+        Link link = getLink("test/vocabulary-ex2-jsonld.json");
+        Link sameLink = Link.fromJson(link.toJson()).orElseThrow();
+
+        assertEquals(link, sameLink);
+        assertEquals(link.hashCode(), sameLink.hashCode());
+        assertEquals(link.contentHash(), sameLink.contentHash());
+        assertSame(link, link.applyUpdate(link.toJson()).orElseThrow());
+
+        Link resized = link.applyUpdate("""
+                {
+                    "@context": "https://www.w3.org/ns/activitystreams",
+                    "type": "Link",
+                    "width": 1
+                }
+                """).orElseThrow();
+        assertNotEquals(link, resized);
+        assertNotEquals(link.contentHash(), resized.contentHash());
+        assertNotEquals(link, ASObject.builder().withId(link.getId()).build());
+    }
+
     private Link getLink(String name) throws Exception {
         var jsonString = JsonTestUtil.getJsonFromFile(name);
         assertNotNull(jsonString);
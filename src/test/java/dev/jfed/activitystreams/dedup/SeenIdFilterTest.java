@@ -0,0 +1,192 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.dedup;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SeenIdFilterTest {
+    private static final String TEST_ID = "https://test.example.com/activity/1";
+    private static final String TEST_JSON = """
+            {
+                "@context": "https://www.w3.org/ns/activitystreams",
+                "type": "Object",
+                "name": { "nested": { "id": "https://test.example.com/other" } },
+                "id": "https://test.example.com/activity/1"
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDuplicate() {
+        var filter = SeenIdFilter.builder().withExpectedInsertions(1000).build();
+
+        assertFalse(filter.checkAndMark(TEST_ID));
+        assertTrue(filter.checkAndMark(TEST_ID));
+        assertTrue(filter.checkAndMark(URI.create(TEST_ID)));
+        assertFalse(filter.checkAndMark("https://test.example.com/activity/2"));
+        assertFalse(filter.checkAndMark((URI) null));
+    }
+
+    @Test
+    void testDuplicateFromJson() {
+        var filter = SeenIdFilter.builder().withExpectedInsertions(1000).build();
+
+        assertFalse(filter.isDuplicate(TEST_JSON));
+        assertTrue(filter.isDuplicate(TEST_JSON));
+        assertTrue(filter.checkAndMark(TEST_ID));
+        assertFalse(filter.isDuplicate("{ \"type\": \"Object\" }"));
+    }
+
+    @Test
+    void testMarkSeenAfterHandling() {
+        var filter = SeenIdFilter.builder().withExpectedInsertions(1000).build();
+
+        // first delivery fails verification, so it's never marked
+        assertFalse(filter.mightBeDuplicate(TEST_ID));
+        assertFalse(filter.mightBeDuplicate(URI.create(TEST_ID)));
+
+        // the retry is handled, and only then marked
+        assertFalse(filter.mightBeDuplicate(TEST_ID));
+        filter.markSeen(URI.create(TEST_ID));
+        assertTrue(filter.mightBeDuplicate(TEST_ID));
+        assertTrue(filter.checkAndMark(TEST_ID));
+
+        filter.markSeen((URI) null);
+        assertFalse(filter.mightBeDuplicate((URI) null));
+    }
+
+    @Test
+    void testWindowExpiry() {
+        var clock = new TestClock();
+        var filter = SeenIdFilter.builder()
+                .withExpectedInsertions(1000)
+                .withWindow(Duration.ofMinutes(10))
+                .withClock(clock)
+                .build();
+
+        assertFalse(filter.checkAndMark(TEST_ID));
+        clock.advance(Duration.ofMinutes(15));
+        // moved to the previous generation, still remembered
+        assertTrue(filter.checkAndMark(TEST_ID));
+        clock.advance(Duration.ofMinutes(25));
+        assertFalse(filter.checkAndMark(TEST_ID));
+    }
+
+    @Test
+    void testConfirmationTier() {
+        var exact = SeenIdFilter.builder().withExpectedInsertions(1000).withConfirmationCapacity(2).build();
+        var trusting = SeenIdFilter.builder().withExpectedInsertions(1000).withConfirmationCapacity(2)
+                .withTrustFilterOnMiss(true).build();
+
+        for (var filter : new SeenIdFilter[] { exact, trusting }) {
+            filter.checkAndMark(TEST_ID);
+            filter.checkAndMark("https://test.example.com/activity/2");
+            filter.checkAndMark("https://test.example.com/activity/3");
+        }
+        assertFalse(exact.checkAndMark(TEST_ID));
+        assertTrue(trusting.checkAndMark(TEST_ID));
+    }
+
+    @Test
+    void testSnapshot() throws Exception {
+        var file = tempDir.resolve("seen-ids.bin");
+        var filter = SeenIdFilter.builder().withExpectedInsertions(1000).build();
+        for (int i = 0; i < 100; i++) {
+            filter.checkAndMark("https://test.example.com/activity/" + i);
+        }
+        filter.saveSnapshot(file);
+
+        var restored = SeenIdFilter.builder().withExpectedInsertions(1000).build();
+        restored.restoreSnapshot(file);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(restored.checkAndMark("https://test.example.com/activity/" + i));
+        }
+        assertFalse(restored.checkAndMark("https://test.example.com/activity/100"));
+
+        var resized = SeenIdFilter.builder().withExpectedInsertions(5000).build();
+        assertThrows(IOException.class, () -> resized.restoreSnapshot(file));
+    }
+
+    @Test
+    void testCorruptedSnapshot() throws Exception {
+        var filter = SeenIdFilter.builder().withExpectedInsertions(1000).withConfirmationCapacity(10).build();
+        filter.checkAndMark(TEST_ID);
+        var out = new ByteArrayOutputStream();
+        filter.writeSnapshot(out);
+        var snapshot = out.toByteArray();
+        // the confirmed ids come last: their count, then the length and bytes of each one
+        int countOffset = snapshot.length - TEST_ID.length() - 2 * Integer.BYTES;
+
+        var restored = SeenIdFilter.builder().withExpectedInsertions(1000).withConfirmationCapacity(10).build();
+        restored.checkAndMark("https://test.example.com/activity/2");
+        for (int[] corruption : new int[][] {
+                { countOffset, -1 }, { countOffset, 11 }, { countOffset, Integer.MAX_VALUE },
+                { countOffset + Integer.BYTES, -1 }, { countOffset + Integer.BYTES, Integer.MAX_VALUE },
+                { 4 * Integer.BYTES + Long.BYTES, -1 } }) {
+            var corrupted = snapshot.clone();
+            ByteBuffer.wrap(corrupted).putInt(corruption[0], corruption[1]);
+            assertThrows(IOException.class, () -> restored.readSnapshot(new ByteArrayInputStream(corrupted)));
+        }
+        assertTrue(restored.checkAndMark("https://test.example.com/activity/2"));
+        assertFalse(restored.checkAndMark("https://test.example.com/activity/3"));
+
+        restored.readSnapshot(new ByteArrayInputStream(snapshot));
+        assertTrue(restored.checkAndMark(TEST_ID));
+    }
+
+    private static class TestClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import dev.jfed.activitystreams.JsonTestUtil;
+import dev.jfed.activitystreams.core.ASObject;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ActivityStreamsEventTest {
+    private static final List<String> EVENT_NAMES = List.of(
+            "dev.jfed.activitystreams.Decode",
+            "dev.jfed.activitystreams.Compaction",
+            "dev.jfed.activitystreams.Mapping",
+            "dev.jfed.activitystreams.Encode");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDisabledByDefault() {
+        FlightRecorder.register(DecodeEvent.class);
+        final var type = EventType.getEventType(DecodeEvent.class);
+        assertFalse(type.isEnabled());
+    }
+
+    @Test
+    void testEventsRecorded() throws Exception {
+        final var json = JsonTestUtil.getJsonFromFile("test/vocabulary-ex1-jsonld.json");
+        final var file = tempDir.resolve("events.jfr");
+
+        try (var recording = new Recording()) {
+            EVENT_NAMES.forEach(name -> recording.enable(name).withThreshold(Duration.ZERO));
+            recording.start();
+
+            final var object = ASObject.fromJson(json).orElseThrow();
+            object.toJson();
+            ASObject.fromJson("{ \"type\": ");
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        final var events = RecordingFile.readAllEvents(file).stream()
+                .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+        EVENT_NAMES.forEach(name -> assertTrue(events.containsKey(name), name));
+
+        final var decodes = events.get("dev.jfed.activitystreams.Decode");
+        assertEquals(2, decodes.size());
+        assertTrue(decodes.stream().anyMatch(e -> "INVALID".equals(e.getString("outcome"))));
+        final RecordedEvent decode = decodes.stream()
+                .filter(e -> "SUCCESS".equals(e.getString("outcome"))).findFirst().orElseThrow();
+        assertEquals(json.length(), decode.getLong("payloadSize"));
+        assertEquals("Object", decode.getString("type"));
+        assertEquals(URI.create("http://www.test.example/object/1").getHost(), decode.getString("idHost"));
+
+        final RecordedEvent encode = events.get("dev.jfed.activitystreams.Encode").get(0);
+        assertEquals("Object", encode.getString("type"));
+        assertTrue(encode.getLong("payloadSize") > 0);
+    }
+}
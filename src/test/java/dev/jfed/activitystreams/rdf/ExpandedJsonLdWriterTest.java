@@ -0,0 +1,100 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.rdf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.List;
+
+import com.apicatalog.jsonld.JsonLd;
+import com.apicatalog.jsonld.document.JsonDocument;
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.NaturalValue;
+import dev.jfed.activitystreams.codec.ContextDocumentLoader;
+import dev.jfed.activitystreams.core.ASObject;
+import dev.jfed.activitystreams.core.Link;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import org.junit.jupiter.api.Test;
+
+class ExpandedJsonLdWriterTest {
+
+    static List<ASType> sampleObjects() {
+        final var link = new Link.LinkBuilder(URI.create("https://example.org/abc.png"))
+                .id(URI.create("https://example.org/links/1"))
+                .rel("canonical")
+                .mediaType("image/png")
+                .hreflang("en")
+                .height(900)
+                .width(600)
+                .name(NaturalValue.builder().withValue("Image \"Link\"\nwith a line break").build())
+                .preview(new Link.LinkBuilder(URI.create("https://example.org/abc-small.png")).width(60).build())
+                .build();
+        final var object = ASObject.builder()
+                .withId(URI.create("https://example.org/objects/1"))
+                .withName(NaturalValue.builder().withValue("en", "Object").withValue("es", "Objeto").build())
+                .withPreview(link)
+                .build();
+        final var blank = ASObject.builder()
+                .withName(NaturalValue.builder().withValue("fr", "Objet").build())
+                .build();
+        final var regional = ASObject.builder()
+                .withId(URI.create("https://example.org/objects/2"))
+                .withName(NaturalValue.builder()
+                        .withValue("en", "Colour")
+                        .withValue("en-US", "Color")
+                        .withValue("zh-Hant-TW", "顏色")
+                        .withValue("Untagged")
+                        .build())
+                .build();
+        return List.of(link, object, blank, regional);
+    }
+
+    @Test
+    void testMatchesExpansionOfJson() throws Exception {
+        final var out = new ByteArrayOutputStream();
+        try (var writer = new ExpandedJsonLdWriter(out)) {
+            for (final var value : sampleObjects()) {
+                writer.write(value);
+            }
+        }
+
+        final JsonArray written;
+        try (var reader = Json.createReader(new ByteArrayInputStream(out.toByteArray()))) {
+            written = reader.readArray();
+        }
+        final var values = sampleObjects();
+        assertEquals(values.size(), written.size());
+        for (int i = 0; i < values.size(); i++) {
+            final var expected = JsonLd.expand(JsonDocument.of(new StringReader(values.get(i).toJson())))
+                    .loader(new ContextDocumentLoader())
+                    .get();
+            assertEquals(expected, Json.createArrayBuilder().add(written.get(i)).build());
+        }
+    }
+
+    @Test
+    void testEmptyOutputIsEmptyArray() {
+        final var out = new ByteArrayOutputStream();
+        new ExpandedJsonLdWriter(out).close();
+        assertEquals("[]", out.toString());
+    }
+}
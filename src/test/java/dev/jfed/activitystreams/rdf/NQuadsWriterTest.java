@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.rdf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.apicatalog.jsonld.JsonLd;
+import com.apicatalog.jsonld.document.JsonDocument;
+import com.apicatalog.rdf.io.nquad.NQuadsWriter;
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.codec.ContextDocumentLoader;
+import org.junit.jupiter.api.Test;
+
+class NQuadsWriterTest {
+
+    @Test
+    void testMatchesRdfOfJson() throws Exception {
+        for (final var value : ExpandedJsonLdWriterTest.sampleObjects()) {
+            final var out = new ByteArrayOutputStream();
+            try (var writer = new dev.jfed.activitystreams.rdf.NQuadsWriter(out)) {
+                writer.write(value);
+            }
+
+            assertEquals(toRdf(value), lines(out.toString(StandardCharsets.UTF_8)), value.toJson());
+        }
+    }
+
+    @Test
+    void testBlankNodesAreUniqueAcrossObjects() throws Exception {
+        final var out = new ByteArrayOutputStream();
+        final var blank = ExpandedJsonLdWriterTest.sampleObjects().get(2);
+        try (var writer = new dev.jfed.activitystreams.rdf.NQuadsWriter(out, URI.create("https://example.org/g"))) {
+            writer.write(blank);
+            writer.write(blank);
+        }
+
+        final var statements = out.toString(StandardCharsets.UTF_8).split("\n");
+        final Set<String> subjects = new HashSet<>();
+        for (final var statement : statements) {
+            assertTrue(statement.endsWith(" <https://example.org/g> ."), statement);
+            subjects.add(statement.substring(0, statement.indexOf(' ')));
+        }
+        assertEquals(Set.of("_:b0", "_:b1"), subjects);
+    }
+
+    private static Set<String> toRdf(final ASType value) throws Exception {
+        final var dataset = JsonLd.toRdf(JsonDocument.of(new StringReader(value.toJson())))
+                .loader(new ContextDocumentLoader())
+                .get();
+        final var out = new StringWriter();
+        new NQuadsWriter(out).write(dataset);
+        return lines(out.toString());
+    }
+
+    private static Set<String> lines(final String nquads) {
+        return new TreeSet<>(Arrays.asList(nquads.split("\n")));
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.soak;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import dev.jfed.activitystreams.ASProperties;
+import dev.jfed.activitystreams.ASType;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+
+/**
+ * Generates synthetic Activity Streams payloads resembling fediverse traffic: a mix of objects and links,
+ * plain names and large language maps, nested previews, extension properties and inline contexts in the
+ * style of Mastodon and Misskey, and a share of malformed input.
+ * <p>
+ * Payloads only reference the AS2 context, which is bundled, so they decode without network access. The
+ * output is fully determined by the seed.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class CorpusGenerator {
+    private static final String[] LANGUAGES = {
+            "en", "es", "fr", "de", "ja", "pt", "it", "nl", "pl", "ru",
+            "zh", "ko", "ar", "sv", "fi", "cs", "tr", "uk", "el", "he"
+    };
+    private static final String[] WORDS = {
+            "federated", "timeline", "boost", "instance", "relay", "inbox", "outbox", "toot", "note", "follow",
+            "actor", "server", "moderation", "emoji", "thread", "reply", "mention", "hashtag", "media", "profile"
+    };
+    private static final String[] MEDIA_TYPES = {"text/html", "image/png", "image/jpeg", "video/mp4", "audio/ogg"};
+    private static final String[] RELS = {"canonical", "preview", "alternate", "me"};
+
+    /**
+     * What a payload is expected to decode to.
+     */
+    public enum Kind {
+        OBJECT, LINK, MALFORMED
+    }
+
+    /**
+     * A generated document.
+     *
+     * @param kind what the payload should decode to.
+     * @param json the JSON text.
+     */
+    public record Payload(Kind kind, String json) {
+    }
+
+    private final Random random;
+    private final double malformedRatio;
+    private final int maxNameMapSize;
+    private final int maxPreviewDepth;
+    private long sequence;
+
+    public CorpusGenerator(final long seed, final double malformedRatio) {
+        this(seed, malformedRatio, LANGUAGES.length, 3);
+    }
+
+    public CorpusGenerator(final long seed, final double malformedRatio, final int maxNameMapSize,
+                           final int maxPreviewDepth) {
+        this.random = new Random(seed);
+        this.malformedRatio = malformedRatio;
+        this.maxNameMapSize = Math.min(maxNameMapSize, LANGUAGES.length);
+        this.maxPreviewDepth = maxPreviewDepth;
+    }
+
+    public List<Payload> generate(final int count) {
+        final List<Payload> payloads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            payloads.add(next());
+        }
+        return payloads;
+    }
+
+    public Payload next() {
+        sequence++;
+        if (random.nextDouble() < malformedRatio) {
+            return new Payload(Kind.MALFORMED, malformed());
+        }
+        if (random.nextInt(10) < 6) {
+            return new Payload(Kind.OBJECT, object(0, true).toString());
+        }
+        return new Payload(Kind.LINK, link(0, true).toString());
+    }
+
+    private JsonObject object(final int depth, final boolean topLevel) {
+        final var builder = Json.createObjectBuilder();
+        if (topLevel) {
+            addContext(builder);
+        }
+        builder.add(ASProperties.TYPE, "Object")
+                .add(ASProperties.ID, id("objects"));
+        addName(builder);
+        addExtensions(builder);
+        if (depth < maxPreviewDepth && random.nextInt(4) == 0) {
+            builder.add(ASProperties.PREVIEW, random.nextBoolean() ? link(depth + 1, false) : object(depth + 1, false));
+        }
+        return builder.build();
+    }
+
+    private JsonObject link(final int depth, final boolean topLevel) {
+        final var builder = Json.createObjectBuilder();
+        if (topLevel) {
+            addContext(builder);
+        }
+        builder.add(ASProperties.TYPE, "Link")
+                .add(ASProperties.HREF, id("media"))
+                .add(ASProperties.MEDIA_TYPE, MEDIA_TYPES[random.nextInt(MEDIA_TYPES.length)]);
+        if (random.nextBoolean()) {
+            builder.add(ASProperties.REL, RELS[random.nextInt(RELS.length)]);
+        }
+        if (random.nextBoolean()) {
+            builder.add(ASProperties.HREFLANG, LANGUAGES[random.nextInt(LANGUAGES.length)]);
+        }
+        if (random.nextBoolean()) {
+            builder.add(ASProperties.WIDTH, 16 + random.nextInt(4096))
+                    .add(ASProperties.HEIGHT, 16 + random.nextInt(4096));
+        }
+        if (random.nextBoolean()) {
+            addName(builder);
+        }
+        if (depth < maxPreviewDepth && random.nextInt(3) == 0) {
+            builder.add(ASProperties.PREVIEW, random.nextBoolean() ? link(depth + 1, false) : object(depth + 1, false));
+        }
+        return builder.build();
+    }
+
+    private void addContext(final JsonObjectBuilder builder) {
+        switch (random.nextInt(3)) {
+            case 0 -> builder.add("@context", ASType.CONTEXT_VALUE);
+            case 1 -> builder.add("@context", Json.createArrayBuilder()
+                    .add(ASType.CONTEXT_VALUE)
+                    .add(Json.createObjectBuilder()
+                            .add("toot", "http://joinmastodon.org/ns#")
+                            .add("discoverable", "toot:discoverable")
+                            .add("indexable", "toot:indexable")
+                            .add("sensitive", "as:sensitive")));
+            default -> builder.add("@context", Json.createArrayBuilder()
+                    .add(ASType.CONTEXT_VALUE)
+                    .add(Json.createObjectBuilder()
+                            .add("misskey", "https://misskey-hub.net/ns#")
+                            .add("_misskey_content", "misskey:_misskey_content")
+                            .add("isCat", "misskey:isCat")));
+        }
+    }
+
+    private void addName(final JsonObjectBuilder builder) {
+        if (random.nextBoolean()) {
+            builder.add(ASProperties.NAME, text(3 + random.nextInt(10)));
+            return;
+        }
+        final var nameMap = Json.createObjectBuilder();
+        final int size = 2 + random.nextInt(Math.max(1, maxNameMapSize - 1));
+        final int offset = random.nextInt(LANGUAGES.length);
+        for (int i = 0; i < size; i++) {
+            nameMap.add(LANGUAGES[(offset + i) % LANGUAGES.length], text(3 + random.nextInt(30)));
+        }
+        builder.add(ASProperties.NAME_MAP, nameMap);
+    }
+
+    private void addExtensions(final JsonObjectBuilder builder) {
+        if (random.nextBoolean()) {
+            builder.add("discoverable", random.nextBoolean());
+        }
+        if (random.nextInt(3) == 0) {
+            builder.add("sensitive", random.nextBoolean());
+        }
+        if (random.nextInt(4) == 0) {
+            builder.add("_misskey_content", text(5 + random.nextInt(40)));
+        }
+        if (random.nextInt(5) == 0) {
+            builder.add("attributedTo", id("users"));
+        }
+    }
+
+    private String malformed() {
+        final var valid = random.nextBoolean() ? object(0, true) : link(0, true);
+        switch (random.nextInt(4)) {
+            case 0: {
+                // truncated in transit
+                final var json = valid.toString();
+                return json.substring(0, 1 + random.nextInt(json.length() - 1));
+            }
+            case 1:
+                // wrong value types
+                return Json.createObjectBuilder(valid)
+                        .add(ASProperties.NAME, random.nextInt())
+                        .remove(ASProperties.NAME_MAP)
+                        .build().toString();
+            case 2:
+                // link without href
+                return Json.createObjectBuilder()
+                        .add("@context", ASType.CONTEXT_VALUE)
+                        .add(ASProperties.TYPE, "Link")
+                        .add(ASProperties.NAME, text(3))
+                        .build().toString();
+            default:
+                return "<html><body>" + text(10) + "</body></html>";
+        }
+    }
+
+    private String id(final String collection) {
+        return "https://host" + random.nextInt(500) + ".example/" + collection + "/" + sequence + "-"
+                + Long.toHexString(random.nextLong());
+    }
+
+    private String text(final int words) {
+        final var sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextInt(8) == 0) {
+            sb.append(" ✨ éè \"quoted\"");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.soak;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+import com.sun.management.ThreadMXBean;
+
+import dev.jfed.activitystreams.ASType;
+import dev.jfed.activitystreams.core.ASObject;
+import dev.jfed.activitystreams.core.Link;
+
+/**
+ * Drives the public decode and encode APIs with a synthetic corpus at a constant target rate, and reports
+ * latency percentiles, allocation rate and the heap high-water mark.
+ * <p>
+ * Operations are scheduled at fixed intervals and latency is measured from the scheduled start, so a stall
+ * shows up in the percentiles of every operation that queued behind it instead of being hidden. Each worker
+ * decodes a payload from its UTF-8 bytes with {@link ASObject#fromJson(byte[])} or
+ * {@link Link#fromJson(byte[])}, and re-encodes it with {@link ASType#toJson()} when it decoded.
+ * <p>
+ * Run it with the {@code soak} profile, thresholds make the process exit with a non-zero status:
+ * <pre>
+ * ./mvnw -Psoak test-compile exec:exec -Dsoak.args="--duration=PT10M --rate=2000 --threads=4 --max-p99-ms=20"
+ * </pre>
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class SoakHarness {
+    private static final String USAGE = "Usage: SoakHarness [--duration=PT60S] [--rate=500] [--threads=2]"
+            + " [--seed=42] [--malformed=0.05] [--corpus=10000] [--warmup=2000] [--report-interval=PT10S]"
+            + " [--max-p99-ms=N] [--max-p999-ms=N] [--max-heap-mb=N] [--max-failures=N]";
+    private static final double MB = 1 << 20;
+
+    private final Duration duration;
+    private final int rate;
+    private final int threads;
+    private final long seed;
+    private final double malformedRatio;
+    private final int corpusSize;
+    private final int warmupOperations;
+    private final Duration reportInterval;
+    private final PrintStream out;
+
+    private SoakHarness(final SoakHarnessBuilder builder) {
+        this.duration = builder.duration;
+        this.rate = builder.rate;
+        this.threads = builder.threads;
+        this.seed = builder.seed;
+        this.malformedRatio = builder.malformedRatio;
+        this.corpusSize = builder.corpusSize;
+        this.warmupOperations = builder.warmupOperations;
+        this.reportInterval = builder.reportInterval;
+        this.out = builder.out;
+    }
+
+    public static SoakHarnessBuilder builder() {
+        return new SoakHarnessBuilder();
+    }
+
+    public static class SoakHarnessBuilder {
+        private Duration duration = Duration.ofSeconds(60);
+        private int rate = 500;
+        private int threads = 2;
+        private long seed = 42;
+        private double malformedRatio = 0.05;
+        private int corpusSize = 10_000;
+        private int warmupOperations = 2_000;
+        private Duration reportInterval = Duration.ofSeconds(10);
+        private PrintStream out = System.out;
+
+        private SoakHarnessBuilder() {
+        }
+
+        public SoakHarnessBuilder withDuration(final Duration duration) {
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException("duration must be positive: " + duration);
+            }
+            this.duration = duration;
+            return this;
+        }
+
+        /**
+         * Sets the target operations per second, across all workers.
+         */
+        public SoakHarnessBuilder withRate(final int rate) {
+            if (rate <= 0) {
+                throw new IllegalArgumentException("rate must be positive: " + rate);
+            }
+            this.rate = rate;
+            return this;
+        }
+
+        public SoakHarnessBuilder withThreads(final int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("threads must be positive: " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        public SoakHarnessBuilder withSeed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public SoakHarnessBuilder withMalformedRatio(final double malformedRatio) {
+            if (malformedRatio < 0 || malformedRatio > 1) {
+                throw new IllegalArgumentException("malformedRatio must be in [0, 1]: " + malformedRatio);
+            }
+            this.malformedRatio = malformedRatio;
+            return this;
+        }
+
+        /**
+         * Sets how many distinct payloads are generated up front. Workers cycle through them, so generating
+         * input doesn't count towards latency or allocation.
+         */
+        public SoakHarnessBuilder withCorpusSize(final int corpusSize) {
+            if (corpusSize <= 0) {
+                throw new IllegalArgumentException("corpusSize must be positive: " + corpusSize);
+            }
+            this.corpusSize = corpusSize;
+            return this;
+        }
+
+        /**
+         * Sets how many unmeasured operations each worker runs before the timed phase.
+         */
+        public SoakHarnessBuilder withWarmupOperations(final int warmupOperations) {
+            if (warmupOperations < 0) {
+                throw new IllegalArgumentException("warmupOperations can't be negative: " + warmupOperations);
+            }
+            this.warmupOperations = warmupOperations;
+            return this;
+        }
+
+        public SoakHarnessBuilder withReportInterval(final Duration reportInterval) {
+            if (reportInterval.isNegative() || reportInterval.isZero()) {
+                throw new IllegalArgumentException("reportInterval must be positive: " + reportInterval);
+            }
+            this.reportInterval = reportInterval;
+            return this;
+        }
+
+        public SoakHarnessBuilder withOutput(final PrintStream out) {
+            this.out = out;
+            return this;
+        }
+
+        public SoakHarness build() {
+            return new SoakHarness(this);
+        }
+    }
+
+    /**
+     * Runs the soak test and returns the aggregated results. Progress is printed every report interval.
+     *
+     * @return the results of the run.
+     * @throws InterruptedException if interrupted while waiting for the workers.
+     */
+    public SoakReport run() throws InterruptedException {
+        final var corpus = new CorpusGenerator(seed, malformedRatio).generate(corpusSize);
+        final var kinds = new CorpusGenerator.Kind[corpus.size()];
+        final var payloads = new byte[corpus.size()][];
+        for (int i = 0; i < corpus.size(); i++) {
+            kinds[i] = corpus.get(i).kind();
+            payloads[i] = corpus.get(i).json().getBytes(StandardCharsets.UTF_8);
+        }
+
+        final var threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final var schedule = new Schedule(threads, Math.max(1, threads * 1_000_000_000L / rate));
+        final var workers = new Worker[threads];
+        final var workerThreads = new Thread[threads];
+        final var ids = new long[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, kinds, payloads, schedule, threadBean);
+            workerThreads[i] = new Thread(workers[i], "soak-worker-" + i);
+            workerThreads[i].setDaemon(true);
+            workerThreads[i].start();
+            ids[i] = workerThreads[i].getId();
+        }
+
+        schedule.warmedUp.await();
+        System.gc();
+        resetHeapPeaks();
+        final long start = System.nanoTime() + 1_000_000L;
+        schedule.start = start;
+        schedule.deadline = start + duration.toNanos();
+        schedule.go.countDown();
+
+        long lastOperations = 0;
+        long lastAllocated = allocatedBytes(threadBean, ids);
+        long lastTime = start;
+        for (final var thread : workerThreads) {
+            while (thread.isAlive()) {
+                thread.join(reportInterval.toMillis());
+                if (!thread.isAlive()) {
+                    break;
+                }
+                final long now = System.nanoTime();
+                long operations = 0;
+                for (final var worker : workers) {
+                    operations += worker.completed;
+                }
+                final long allocated = allocatedBytes(threadBean, ids);
+                final double seconds = (now - lastTime) / 1e9;
+                out.printf("[%7.1fs] %9.0f ops/s  alloc %9.1f MB/s  heap peak %8.1f MB%n",
+                        (now - start) / 1e9, (operations - lastOperations) / seconds,
+                        (allocated - lastAllocated) / seconds / MB, heapPeakBytes() / MB);
+                lastOperations = operations;
+                lastAllocated = allocated;
+                lastTime = now;
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        final var histogram = new LatencyHistogram();
+        long decoded = 0;
+        long rejected = 0;
+        long failed = 0;
+        long allocated = 0;
+        for (final var worker : workers) {
+            histogram.add(worker.histogram);
+            decoded += worker.decoded;
+            rejected += worker.rejected;
+            failed += worker.failed;
+            allocated += worker.allocatedBytes;
+        }
+        final var report = new SoakReport(histogram.getTotalCount(), decoded, rejected, failed,
+                Duration.ofNanos(elapsed), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), histogram.getMaxValue(), allocated, heapPeakBytes());
+        out.println(report);
+        return report;
+    }
+
+    /**
+     * Timed phase shared by the workers. The fields are published by counting down {@link #go}.
+     */
+    private static final class Schedule {
+        private final int workers;
+        private final long intervalNanos;
+        private final CountDownLatch warmedUp;
+        private final CountDownLatch go = new CountDownLatch(1);
+        private long start;
+        private long deadline;
+
+        private Schedule(final int workers, final long intervalNanos) {
+            this.workers = workers;
+            this.intervalNanos = intervalNanos;
+            this.warmedUp = new CountDownLatch(workers);
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final int index;
+        private final CorpusGenerator.Kind[] kinds;
+        private final byte[][] payloads;
+        private final Schedule schedule;
+        private final ThreadMXBean threadBean;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private volatile long completed;
+        private long decoded;
+        private long rejected;
+        private long failed;
+        private long allocatedBytes;
+
+        private Worker(final int index, final CorpusGenerator.Kind[] kinds, final byte[][] payloads,
+                       final Schedule schedule, final ThreadMXBean threadBean) {
+            this.index = index;
+            this.kinds = kinds;
+            this.payloads = payloads;
+            this.schedule = schedule;
+            this.threadBean = threadBean;
+        }
+
+        @Override
+        public void run() {
+            int payload = index % payloads.length;
+            for (int i = 0; i < warmupOperations; i++) {
+                process(payload);
+                payload = (payload + schedule.workers) % payloads.length;
+            }
+            decoded = 0;
+            rejected = 0;
+            failed = 0;
+            schedule.warmedUp.countDown();
+            try {
+                schedule.go.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            final long allocatedAtStart = threadBean.getCurrentThreadAllocatedBytes();
+            long next = schedule.start + index * schedule.intervalNanos / schedule.workers;
+            long count = 0;
+            while (next < schedule.deadline) {
+                long now = System.nanoTime();
+                while (now < next) {
+                    LockSupport.parkNanos(next - now);
+                    now = System.nanoTime();
+                }
+                process(payload);
+                histogram.record(System.nanoTime() - next);
+                completed = ++count;
+                payload = (payload + schedule.workers) % payloads.length;
+                next += schedule.intervalNanos;
+            }
+            allocatedBytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+        }
+
+        private void process(final int payload) {
+            try {
+                final Optional<? extends ASType> value = kinds[payload] == CorpusGenerator.Kind.LINK
+                        ? Link.fromJson(payloads[payload])
+                        : ASObject.fromJson(payloads[payload]);
+                if (value.isPresent()) {
+                    value.get().toJson();
+                    decoded++;
+                } else {
+                    rejected++;
+                }
+            } catch (RuntimeException e) {
+                failed++;
+            }
+        }
+    }
+
+    private static long allocatedBytes(final ThreadMXBean threadBean, final long[] ids) {
+        long total = 0;
+        for (final long allocated : threadBean.getThreadAllocatedBytes(ids)) {
+            total += Math.max(0, allocated);
+        }
+        return total;
+    }
+
+    private static void resetHeapPeaks() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of the peak usage of every heap pool since the last reset. Pools peak at different times, so this
+     * is an upper bound of the heap actually in use at once.
+     */
+    private static long heapPeakBytes() {
+        long total = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                total += pool.getPeakUsage().getUsed();
+            }
+        }
+        return total;
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        final var builder = builder();
+        long maxP99 = Long.MAX_VALUE;
+        long maxP999 = Long.MAX_VALUE;
+        long maxHeap = Long.MAX_VALUE;
+        long maxFailures = Long.MAX_VALUE;
+        for (final String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+            final var value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "duration" -> builder.withDuration(Duration.parse(value));
+                case "rate" -> builder.withRate(Integer.parseInt(value));
+                case "threads" -> builder.withThreads(Integer.parseInt(value));
+                case "seed" -> builder.withSeed(Long.parseLong(value));
+                case "malformed" -> builder.withMalformedRatio(Double.parseDouble(value));
+                case "corpus" -> builder.withCorpusSize(Integer.parseInt(value));
+                case "warmup" -> builder.withWarmupOperations(Integer.parseInt(value));
+                case "report-interval" -> builder.withReportInterval(Duration.parse(value));
+                case "max-p99-ms" -> maxP99 = Duration.ofMillis(Long.parseLong(value)).toNanos();
+                case "max-p999-ms" -> maxP999 = Duration.ofMillis(Long.parseLong(value)).toNanos();
+                case "max-heap-mb" -> maxHeap = Long.parseLong(value) << 20;
+                case "max-failures" -> maxFailures = Long.parseLong(value);
+                default -> {
+                    System.err.println(USAGE);
+                    System.exit(2);
+                }
+            }
+        }
+
+        final var report = builder.build().run();
+        boolean passed = check("p99", report.getP99Nanos(), maxP99);
+        passed &= check("p99.9", report.getP999Nanos(), maxP999);
+        passed &= check("heap peak", report.getHeapPeakBytes(), maxHeap);
+        passed &= check("failures", report.getFailed(), maxFailures);
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean check(final String name, final long value, final long limit) {
+        if (value > limit) {
+            System.err.printf("FAILED: %s is %d, limit is %d%n", name, value, limit);
+            return false;
+        }
+        return true;
+    }
+}
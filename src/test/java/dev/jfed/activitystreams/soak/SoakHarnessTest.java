@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.soak;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import dev.jfed.activitystreams.core.ASObject;
+import dev.jfed.activitystreams.core.Link;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class SoakHarnessTest {
+
+    @Test
+    void testCorpusIsDeterministic() {
+        final var first = new CorpusGenerator(7, 0.1).generate(200);
+        final var second = new CorpusGenerator(7, 0.1).generate(200);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void testCorpusDecodesOffline() {
+        final var corpus = new CorpusGenerator(11, 0.1).generate(300);
+        int objects = 0;
+        int links = 0;
+        int malformed = 0;
+        for (final var payload : corpus) {
+            switch (payload.kind()) {
+                case OBJECT -> {
+                    objects++;
+                    assertTrue(ASObject.fromJson(payload.json()).isPresent(), payload.json());
+                }
+                case LINK -> {
+                    links++;
+                    assertTrue(Link.fromJson(payload.json()).isPresent(), payload.json());
+                }
+                default -> malformed++;
+            }
+        }
+        assertTrue(objects > links && links > malformed && malformed > 0,
+                "objects=" + objects + " links=" + links + " malformed=" + malformed);
+    }
+
+    @Test
+    @Tag("soak")
+    void testShortRun() throws InterruptedException {
+        final var output = new ByteArrayOutputStream();
+        final var report = SoakHarness.builder()
+                .withDuration(Duration.ofSeconds(1))
+                .withRate(200)
+                .withThreads(2)
+                .withCorpusSize(100)
+                .withWarmupOperations(20)
+                .withReportInterval(Duration.ofMillis(300))
+                .withOutput(new PrintStream(output, true, StandardCharsets.UTF_8))
+                .build()
+                .run();
+
+        assertTrue(report.getOperations() > 100, report.toString());
+        assertEquals(report.getOperations(), report.getDecoded() + report.getRejected() + report.getFailed());
+        assertTrue(report.getP50Nanos() > 0 && report.getP50Nanos() <= report.getP99Nanos());
+        assertTrue(report.getP99Nanos() <= report.getP999Nanos() && report.getP999Nanos() <= report.getMaxNanos());
+        assertTrue(report.getAllocatedBytes() > 0);
+        assertTrue(report.getHeapPeakBytes() > 0);
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("p99.9="));
+    }
+
+    @Test
+    void testHistogramPrecision() {
+        final var histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        assertEquals(1_000_000, histogram.getTotalCount());
+        assertEquals(500_000_000, histogram.getValueAtPercentile(50), 500_000_000 * 0.03);
+        assertEquals(990_000_000, histogram.getValueAtPercentile(99), 990_000_000 * 0.03);
+        assertEquals(1_000_000_000, histogram.getMaxValue());
+    }
+}
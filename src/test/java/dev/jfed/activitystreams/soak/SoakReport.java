@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022-2024 Guillermo Castro
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.jfed.activitystreams.soak;
+
+import java.time.Duration;
+
+/**
+ * Results of a {@link SoakHarness} run. Latencies are in nanoseconds, measured from the scheduled start of
+ * each operation.
+ *
+ * @author Guillermo Castro
+ * @since 0.0.1
+ */
+public final class SoakReport {
+    private final long operations;
+    private final long decoded;
+    private final long rejected;
+    private final long failed;
+    private final Duration elapsed;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+    private final long allocatedBytes;
+    private final long heapPeakBytes;
+
+    SoakReport(final long operations, final long decoded, final long rejected, final long failed,
+               final Duration elapsed, final long p50Nanos, final long p99Nanos, final long p999Nanos,
+               final long maxNanos, final long allocatedBytes, final long heapPeakBytes) {
+        this.operations = operations;
+        this.decoded = decoded;
+        this.rejected = rejected;
+        this.failed = failed;
+        this.elapsed = elapsed;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.heapPeakBytes = heapPeakBytes;
+    }
+
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * Returns how many payloads decoded and were encoded back.
+     */
+    public long getDecoded() {
+        return decoded;
+    }
+
+    /**
+     * Returns how many payloads the decoder rejected without throwing.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns how many operations threw an exception.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the bytes allocated by the workers per second of the timed phase.
+     */
+    public double getAllocationRate() {
+        final double seconds = elapsed.toNanos() / 1e9;
+        return seconds > 0 ? allocatedBytes / seconds : 0;
+    }
+
+    public long getHeapPeakBytes() {
+        return heapPeakBytes;
+    }
+
+    public double getThroughput() {
+        final double seconds = elapsed.toNanos() / 1e9;
+        return seconds > 0 ? operations / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("operations=%d (%.0f/s) decoded=%d rejected=%d failed=%d%n"
+                        + "latency p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms%n"
+                        + "allocation %.1f MB/s (%d bytes/op), heap peak %.1f MB",
+                operations, getThroughput(), decoded, rejected, failed,
+                p50Nanos / 1e6, p99Nanos / 1e6, p999Nanos / 1e6, maxNanos / 1e6,
+                getAllocationRate() / (1 << 20), operations > 0 ? allocatedBytes / operations : 0,
+                heapPeakBytes / (double) (1 << 20));
+    }
+}